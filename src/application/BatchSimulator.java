@@ -0,0 +1,176 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Plays large numbers of games headlessly to measure how hard a board size
+ * and mine count are for a given strategy. Games are split into batches that
+ * run on a thread pool; each game's board and player stay on the thread that
+ * plays it, and each batch keeps its own totals until the end, so threads
+ * share nothing while they run.
+ *
+ * Game n is generated from seed n alone, so a range of seeds always plays
+ * the same games no matter how many threads are used.
+ *
+ * Usage: BatchSimulator [size] [mines] [first seed] [games] [random|solver] [threads]
+ */
+public class BatchSimulator {
+    private static final int GAMES_PER_BATCH = 256;
+
+    /** Decides where to click next. A new Player is created for every game. */
+    public interface Player {
+        /**
+         * Returns the cell to reveal as x * size + y.
+         *
+         * @param revealed the cells the previous move revealed, empty on the first move
+         * @param random   this game's random numbers, for guesses
+         */
+        int nextMove(GameEngine engine, int[] revealed, SplittableRandom random);
+    }
+
+    /** Clicks hidden cells at random. */
+    public static class RandomPlayer implements Player {
+        @Override
+        public int nextMove(GameEngine engine, int[] revealed, SplittableRandom random) {
+            Board board = engine.getBoard();
+            int cells = board.getSize() * board.getSize();
+            int cell;
+            do {
+                cell = random.nextInt(cells);
+            } while (Board.get(board.revealedBits, cell));
+            return cell;
+        }
+    }
+
+    /** Plays cells Solver has proven safe, and guesses at random among the rest only when there are none. */
+    public static class SolverPlayer implements Player {
+        private Solver solver;
+
+        @Override
+        public int nextMove(GameEngine engine, int[] revealed, SplittableRandom random) {
+            Board board = engine.getBoard();
+            if (solver == null) {
+                solver = new Solver(board);
+            }
+            solver.onReveal(revealed);
+            solver.analyse();
+            int cell = solver.nextSafeCell();
+            if (cell >= 0) {
+                return cell;
+            }
+            int size = board.getSize();
+            do {
+                cell = random.nextInt(size * size);
+            } while (Board.get(board.revealedBits, cell) || solver.isKnownMine(cell / size, cell % size));
+            return cell;
+        }
+    }
+
+    /** Totals over a set of games. */
+    public record Stats(long games, long wins, long moves, long cellsRevealed) {
+        Stats plus(Stats other) {
+            return new Stats(games + other.games, wins + other.wins, moves + other.moves,
+                    cellsRevealed + other.cellsRevealed);
+        }
+    }
+
+    private final int size;
+    private final int mines;
+    private final Supplier<Player> players;
+    private final int threads;
+
+    public BatchSimulator(int size, int mines, Supplier<Player> players, int threads) {
+        new Board(size, mines); // Validates the settings
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread, got " + threads);
+        }
+        this.size = size;
+        this.mines = mines;
+        this.players = players;
+        this.threads = threads;
+    }
+
+    /** Plays the games with seeds firstSeed to firstSeed + games - 1. */
+    public Stats run(long firstSeed, long games) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Stats>> batches = new ArrayList<>();
+            for (long from = 0; from < games; from += GAMES_PER_BATCH) {
+                long start = firstSeed + from;
+                long end = firstSeed + Math.min(from + GAMES_PER_BATCH, games);
+                batches.add(executor.submit(() -> playBatch(start, end)));
+            }
+            Stats total = new Stats(0, 0, 0, 0);
+            for (Future<Stats> batch : batches) {
+                total = total.plus(batch.get());
+            }
+            return total;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A game failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Stats playBatch(long fromSeed, long toSeed) {
+        long wins = 0;
+        long moves = 0;
+        long cellsRevealed = 0;
+        for (long seed = fromSeed; seed < toSeed; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            GameEngine engine = GameEngine.newGame(size, mines, random.nextLong(), false);
+            Player player = players.get();
+            int[] revealed = new int[0];
+            while (engine.getState() == GameEngine.State.PLAYING) {
+                int cell = player.nextMove(engine, revealed, random);
+                revealed = engine.reveal(cell / size, cell % size);
+                moves++;
+                cellsRevealed += revealed.length;
+            }
+            if (engine.getState() == GameEngine.State.WON) {
+                wins++;
+            }
+        }
+        return new Stats(toSeed - fromSeed, wins, moves, cellsRevealed);
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int mines = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        long firstSeed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        long games = args.length > 3 ? Long.parseLong(args[3]) : 100_000;
+        String strategy = args.length > 4 ? args[4] : "solver";
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+        Supplier<Player> players;
+        if (strategy.equals("random")) {
+            players = RandomPlayer::new;
+        } else if (strategy.equals("solver")) {
+            players = SolverPlayer::new;
+        } else {
+            throw new IllegalArgumentException("Unknown strategy " + strategy + ", expected random or solver");
+        }
+
+        BatchSimulator simulator = new BatchSimulator(size, mines, players, threads);
+        long start = System.nanoTime();
+        Stats stats = simulator.run(firstSeed, games);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%s player, board %dx%d, %d mines, seeds %d-%d, %d threads%n",
+                strategy, size, size, mines, firstSeed, firstSeed + games - 1, threads);
+        System.out.printf("win rate:       %.2f%%%n", 100.0 * stats.wins() / stats.games());
+        System.out.printf("average moves:  %.2f%n", (double) stats.moves() / stats.games());
+        System.out.printf("cells/second:   %.0f%n", stats.cellsRevealed() / seconds);
+        System.out.printf("games/second:   %.0f%n", stats.games() / seconds);
+    }
+}
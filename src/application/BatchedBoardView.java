@@ -0,0 +1,120 @@
+package application;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.Parent;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Wraps another view so revealed cells are drawn once per animation pulse
+ * instead of as soon as they are revealed. Each pulse draws queued cells until
+ * FRAME_BUDGET_NANOS is used up and leaves the rest for the next pulse, so a
+ * cascade of any size never freezes the window; CSS and layout then run once
+ * for the whole batch. Flags and hints are still drawn straight away.
+ *
+ * When a reveal takes more than one frame to draw, the longest gap between
+ * pulses is printed, to check the window kept up.
+ */
+public class BatchedBoardView implements BoardView {
+    private static final long FRAME_BUDGET_NANOS = 8_000_000; // Half a 60 Hz frame
+    private static final int SLICE = 512; // Cells drawn between checks of the clock
+
+    private final BoardView view;
+    private final AnimationTimer timer;
+
+    // Reveals waiting to be drawn; the first one is drawn from `offset` on
+    private final ArrayDeque<int[]> pending = new ArrayDeque<>();
+    private int offset;
+
+    // Statistics for the cascade being drawn
+    private long cells;
+    private int frames;
+    private long lastPulse;
+    private long longestPulse;
+    private long longestDraw;
+
+    public BatchedBoardView(BoardView view) {
+        this.view = view;
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                drawPending(now);
+            }
+        };
+    }
+
+    @Override
+    public Parent getNode() {
+        return view.getNode();
+    }
+
+    @Override
+    public void reset(Board board) {
+        pending.clear();
+        offset = 0;
+        timer.stop();
+        view.reset(board);
+    }
+
+    @Override
+    public void showCells(int[] cells, int from, int to) {
+        if (from == to) {
+            return;
+        }
+        if (pending.isEmpty()) {
+            this.cells = 0;
+            frames = 0;
+            lastPulse = 0;
+            longestPulse = 0;
+            longestDraw = 0;
+            timer.start();
+        }
+        pending.add(from == 0 && to == cells.length ? cells : Arrays.copyOfRange(cells, from, to));
+    }
+
+    @Override
+    public void showFlag(int x, int y) {
+        view.showFlag(x, y);
+    }
+
+    @Override
+    public void showProbabilities(double[] probabilities) {
+        view.showProbabilities(probabilities);
+    }
+
+    /** True while revealed cells are still queued. */
+    boolean isDrawing() {
+        return !pending.isEmpty();
+    }
+
+    private void drawPending(long now) {
+        long start = System.nanoTime();
+        if (lastPulse != 0) {
+            longestPulse = Math.max(longestPulse, now - lastPulse);
+        }
+        lastPulse = now;
+        frames++;
+
+        while (!pending.isEmpty() && System.nanoTime() - start < FRAME_BUDGET_NANOS) {
+            int[] next = pending.peek();
+            int end = Math.min(offset + SLICE, next.length);
+            view.showCells(next, offset, end);
+            cells += end - offset;
+            offset = end;
+            if (offset == next.length) {
+                pending.poll();
+                offset = 0;
+            }
+        }
+        longestDraw = Math.max(longestDraw, System.nanoTime() - start);
+
+        if (pending.isEmpty()) {
+            timer.stop();
+            if (frames > 1) {
+                System.out.printf("Drew %d cells over %d frames: longest pulse %.1f ms, longest draw %.1f ms%n",
+                        cells, frames, longestPulse / 1e6, longestDraw / 1e6);
+            }
+        }
+    }
+}
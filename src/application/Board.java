@@ -0,0 +1,230 @@
+package application;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Cell state of a Minesweeper board: where the mines are, and which cells
+ * have been flagged or revealed. Has no JavaFX dependencies.
+ */
+public class Board {
+    // Boards with at least 1/DENSE_THRESHOLD of their cells mined use sequential selection
+    private static final int DENSE_THRESHOLD = 16;
+
+    private final int size;
+    private final int mines;
+    private long seed;
+    private int safeStart = -1; // Cell kept clear by generateMines(seed, x, y)
+
+    // One bit per cell, with cell (x, y) at bit x * size + y of each plane.
+    // A 4000x4000 board takes 6 MB for all three planes.
+    final long[] mineBits;
+    final long[] flagBits;
+    final long[] revealedBits;
+
+    public Board(int size, int mines) {
+        checkSettings(size, mines);
+        this.size = size;
+        this.mines = mines;
+        int words = (size * size + 63) >>> 6;
+        mineBits = new long[words];
+        flagBits = new long[words];
+        revealedBits = new long[words];
+    }
+
+    /** Throws IllegalArgumentException if a board cannot have this size and number of mines. */
+    public static void checkSettings(int size, int mines) {
+        // size * size must fit in an int since cells are indexed as x * size + y
+        if (size < 1 || size > 46340) {
+            throw new IllegalArgumentException("Grid size must be between 1 and 46340, got " + size);
+        }
+        if (mines < 0 || mines > size * size) {
+            throw new IllegalArgumentException("Number of mines must be between 0 and " + size * size + ", got " + mines);
+        }
+    }
+
+    /**
+     * Places the mines at random. The same seed always produces the same board.
+     * Sparse boards use Floyd's sampling algorithm, which draws one random
+     * number per mine. Dense boards use a single sequential selection pass,
+     * which fills each word of the mine plane in one go. Either way the work
+     * stays linear in the number of mines.
+     */
+    public void generateMines(long seed) {
+        this.seed = seed;
+        this.safeStart = -1;
+        placeMines(new SplittableRandom(seed));
+    }
+
+    /**
+     * Places the mines at random but keeps (safeX, safeY) and its neighbors
+     * clear, so a first click there always opens an area. The same seed and
+     * start always produce the same board.
+     */
+    public void generateMines(long seed, int safeX, int safeY) {
+        if (safeX < 0 || safeX >= size || safeY < 0 || safeY >= size) {
+            throw new IllegalArgumentException("Start cell (" + safeX + ", " + safeY + ") is off the board");
+        }
+        int top = Math.max(safeX - 1, 0);
+        int bottom = Math.min(safeX + 1, size - 1);
+        int left = Math.max(safeY - 1, 0);
+        int right = Math.min(safeY + 1, size - 1);
+        int cells = size * size;
+        int free = cells - (bottom - top + 1) * (right - left + 1);
+        if (mines > free) {
+            throw new IllegalArgumentException("At most " + free + " mines fit around a safe start, got " + mines);
+        }
+
+        this.seed = seed;
+        this.safeStart = safeX * size + safeY;
+        SplittableRandom random = new SplittableRandom(seed);
+        placeMines(random);
+        // Move any mine in the start area to a random free cell outside it
+        for (int x = top; x <= bottom; x++) {
+            for (int y = left; y <= right; y++) {
+                if (get(mineBits, x * size + y)) {
+                    clear(mineBits, x * size + y);
+                    int cell;
+                    do {
+                        cell = random.nextInt(cells);
+                    } while (get(mineBits, cell)
+                            || (cell / size >= top && cell / size <= bottom && cell % size >= left && cell % size <= right));
+                    set(mineBits, cell);
+                }
+            }
+        }
+    }
+
+    // Replaces any mines from an earlier call, so a board can be generated again
+    private void placeMines(SplittableRandom random) {
+        int cells = size * size;
+        Arrays.fill(mineBits, 0L);
+
+        if (mines < cells / DENSE_THRESHOLD) {
+            for (int j = cells - mines; j < cells; j++) {
+                int cell = random.nextInt(j + 1);
+                // Cells above j have not been drawn from yet, so j itself is always free
+                if (get(mineBits, cell)) {
+                    cell = j;
+                }
+                set(mineBits, cell);
+            }
+        } else {
+            // Each cell becomes a mine with probability (mines left) / (cells left)
+            // (nextDouble() * left < needed is always true once needed == left,
+            // so exactly `mines` cells are chosen)
+            int needed = mines;
+            int left = cells;
+            for (int word = 0; word < mineBits.length; word++) {
+                int bitsInWord = Math.min(64, cells - word * 64);
+                long bits = 0;
+                for (int bit = 0; bit < bitsInWord; bit++) {
+                    boolean mine = random.nextDouble() * left < needed;
+                    bits |= (mine ? 1L : 0L) << bit;
+                    needed -= mine ? 1 : 0;
+                    left--;
+                }
+                mineBits[word] = bits;
+            }
+        }
+    }
+
+    // For boards loaded from a file, whose mines were placed when they were first generated
+    void setGeneratedFrom(long seed, int safeStart) {
+        this.seed = seed;
+        this.safeStart = safeStart;
+    }
+
+    static boolean get(long[] plane, int cell) {
+        return (plane[cell >>> 6] & (1L << cell)) != 0; // Shifts only use the low 6 bits of cell
+    }
+
+    static void set(long[] plane, int cell) {
+        plane[cell >>> 6] |= 1L << cell;
+    }
+
+    static void clear(long[] plane, int cell) {
+        plane[cell >>> 6] &= ~(1L << cell);
+    }
+
+    /**
+     * Returns the three bits of a plane starting at cell `from` as bits 0-2.
+     * `from` may be -1 (the cell before the first) and the bits may span two
+     * words; anything past the ends of the plane reads as 0.
+     */
+    static int window(long[] plane, int from) {
+        if (from < 0) {
+            return (int) (plane[0] << 1) & 7;
+        }
+        int word = from >>> 6;
+        int shift = from & 63;
+        long bits = plane[word] >>> shift;
+        if (shift > 61 && word + 1 < plane.length) {
+            bits |= plane[word + 1] << (64 - shift);
+        }
+        return (int) bits & 7;
+    }
+
+    /** Mask for a window starting at column y - 1 that drops columns off the edge of the row. */
+    int edgeMask(int y) {
+        int mask = 7;
+        if (y == 0) {
+            mask &= ~1;
+        }
+        if (y == size - 1) {
+            mask &= ~4;
+        }
+        return mask;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /** The start cell the mines were kept away from, as x * size + y, or -1 if there was none. */
+    public int getSafeStart() {
+        return safeStart;
+    }
+
+    public int getMines() {
+        return mines;
+    }
+
+    public boolean isMine(int x, int y) {
+        return get(mineBits, x * size + y);
+    }
+
+    public boolean isFlagged(int x, int y) {
+        return get(flagBits, x * size + y);
+    }
+
+    public boolean isRevealed(int x, int y) {
+        return get(revealedBits, x * size + y);
+    }
+
+    void setFlagged(int x, int y, boolean flagged) {
+        if (flagged) {
+            set(flagBits, x * size + y);
+        } else {
+            clear(flagBits, x * size + y);
+        }
+    }
+
+    /** Counts the mines around (x, y) with one 3-bit window per row instead of 8 lookups. */
+    public int countNeighboringMines(int x, int y) {
+        int cell = x * size + y;
+        int mask = edgeMask(y);
+        int count = Integer.bitCount(window(mineBits, cell - 1) & mask & ~2); // Skip the cell itself
+        if (x > 0) {
+            count += Integer.bitCount(window(mineBits, cell - size - 1) & mask);
+        }
+        if (x < size - 1) {
+            count += Integer.bitCount(window(mineBits, cell + size - 1) & mask);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,201 @@
+package application;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves and loads whole boards, for boards too big to rebuild move by move.
+ *
+ * A file is a 64-byte header followed by the board's bit planes exactly as
+ * Board stores them: mines, flags, then revealed cells, each one bit per cell
+ * in little-endian 64-bit words. An optional count plane follows with every
+ * cell's neighboring mine count in 4 bits, for readers that want the numbers
+ * without working them out. Planes are copied through one direct buffer with
+ * plain channel reads and writes. Files are never memory-mapped, since on
+ * Windows a mapped file cannot be replaced until the mapping is collected.
+ *
+ * Header, little-endian: magic, version, size, mines (ints), seed (long),
+ * safe start cell, flags (ints; bit 0 set if there is a count plane), then
+ * zeros up to HEADER_BYTES.
+ */
+public class BoardFile {
+    private static final int MAGIC = 0x45474231; // "EGB1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int HAS_COUNTS = 1;
+    private static final int COUNT_BAND_CELLS = 1 << 20;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private BoardFile() {
+    }
+
+    /**
+     * Writes the board to the path, replacing any file there, with a count
+     * plane if asked for. The board goes to a new file next to it first, which
+     * is then moved over the old one, so an earlier file is never truncated.
+     */
+    public static void save(Board board, Path path, boolean withCounts) throws IOException {
+        int size = board.getSize();
+        Path absolute = path.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = newBuffer();
+                buffer.putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putInt(size)
+                        .putInt(board.getMines())
+                        .putLong(board.getSeed())
+                        .putInt(board.getSafeStart())
+                        .putInt(withCounts ? HAS_COUNTS : 0);
+                buffer.position(HEADER_BYTES).flip(); // Zeros after the fields
+                writeFully(channel, buffer);
+
+                for (long[] plane : new long[][] { board.mineBits, board.flagBits, board.revealedBits }) {
+                    writePlane(channel, buffer, plane);
+                }
+                if (withCounts) {
+                    writeCounts(board, channel, buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(temp, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp); // Only still there if the save failed
+        }
+    }
+
+    /**
+     * Reads a board saved by save(). Its flags and revealed cells come back
+     * as they were; a GameEngine created on it carries on from there.
+     *
+     * @throws IllegalArgumentException if the file is not a board file or does not add up
+     */
+    public static Board load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IllegalArgumentException(path + " is not a board file");
+            }
+            ByteBuffer buffer = newBuffer();
+            buffer.limit(HEADER_BYTES);
+            readFully(channel, buffer);
+            buffer.flip();
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IllegalArgumentException(path + " is not a board file");
+            }
+            int size = buffer.getInt();
+            int mines = buffer.getInt();
+            long seed = buffer.getLong();
+            int safeStart = buffer.getInt();
+            boolean withCounts = (buffer.getInt() & HAS_COUNTS) != 0;
+
+            Board board = new Board(size, mines);
+            long planeBytes = board.mineBits.length * 8L;
+            long countBytes = withCounts ? ((long) size * size + 1) / 2 : 0;
+            if (channel.size() != HEADER_BYTES + 3 * planeBytes + countBytes) {
+                throw new IllegalArgumentException(path + " is cut short or has extra data");
+            }
+            for (long[] plane : new long[][] { board.mineBits, board.flagBits, board.revealedBits }) {
+                readPlane(channel, buffer, plane);
+            }
+            board.setGeneratedFrom(seed, safeStart);
+            check(board, path);
+            return board;
+        }
+    }
+
+    private static ByteBuffer newBuffer() {
+        return ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // A plane goes through the buffer a chunk of words at a time
+    private static void writePlane(FileChannel channel, ByteBuffer buffer, long[] plane) throws IOException {
+        for (int word = 0; word < plane.length;) {
+            int words = Math.min(plane.length - word, BUFFER_BYTES / 8);
+            buffer.clear();
+            buffer.asLongBuffer().put(plane, word, words);
+            buffer.limit(words * 8);
+            writeFully(channel, buffer);
+            word += words;
+        }
+    }
+
+    private static void readPlane(FileChannel channel, ByteBuffer buffer, long[] plane) throws IOException {
+        for (int word = 0; word < plane.length;) {
+            int words = Math.min(plane.length - word, BUFFER_BYTES / 8);
+            buffer.clear().limit(words * 8);
+            readFully(channel, buffer);
+            buffer.flip();
+            buffer.asLongBuffer().get(plane, word, words);
+            word += words;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Board file ended early");
+            }
+        }
+    }
+
+    // Two cells to a byte, low nibble first, counted with NeighborCounts a band of rows at a time
+    private static void writeCounts(Board board, FileChannel channel, ByteBuffer buffer) throws IOException {
+        int size = board.getSize();
+        int rows = Math.max(2, COUNT_BAND_CELLS / size & ~1); // Even, so only the last band can have an odd cell
+        byte[] counts = new byte[rows * size];
+        byte[] packed = new byte[(counts.length + 1) / 2];
+        for (int x = 0; x < size; x += rows) {
+            int to = Math.min(x + rows, size);
+            int cells = (to - x) * size;
+            NeighborCounts.compute(board, x, to, counts);
+            int used = 0;
+            for (int i = 0; i + 1 < cells; i += 2) {
+                packed[used++] = (byte) (counts[i] | counts[i + 1] << 4);
+            }
+            if (cells % 2 != 0) {
+                packed[used++] = counts[cells - 1];
+            }
+            for (int i = 0; i < used;) {
+                int bytes = Math.min(used - i, BUFFER_BYTES);
+                buffer.clear();
+                buffer.put(packed, i, bytes).flip();
+                writeFully(channel, buffer);
+                i += bytes;
+            }
+        }
+    }
+
+    // The planes must hold exactly the header's mines, and no more flags than that
+    private static void check(Board board, Path path) {
+        long cells = (long) board.getSize() * board.getSize();
+        long tail = cells % 64 == 0 ? 0 : -1L << cells; // Bits past the last cell
+        int last = board.mineBits.length - 1;
+        if (((board.mineBits[last] | board.flagBits[last] | board.revealedBits[last]) & tail) != 0) {
+            throw new IllegalArgumentException(path + " has cells past the edge of the board");
+        }
+        long mines = 0;
+        long flags = 0;
+        for (int word = 0; word <= last; word++) {
+            mines += Long.bitCount(board.mineBits[word]);
+            flags += Long.bitCount(board.flagBits[word]);
+        }
+        if (mines != board.getMines() || flags > mines) {
+            throw new IllegalArgumentException(path + " has " + mines + " mines and " + flags
+                    + " flags, but the header says " + board.getMines() + " mines");
+        }
+    }
+}
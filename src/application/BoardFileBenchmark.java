@@ -0,0 +1,100 @@
+package application;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Times saving and loading boards with BoardFile, against writing three
+ * boolean[][]-style planes one cell at a time the way the old code would have.
+ * Each board is part played first so the flag and revealed planes are not
+ * empty, and every load is checked against the board that was saved.
+ *
+ * Usage: BoardFileBenchmark [size...]
+ */
+public class BoardFileBenchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = args.length > 0 ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[] { 1000, 4000, 8000 };
+        Path path = Files.createTempFile("board", ".bin");
+        try {
+            for (int size : sizes) {
+                Board board = partPlayed(size);
+                long cells = (long) size * size;
+
+                long save = Long.MAX_VALUE;
+                long saveCounts = Long.MAX_VALUE;
+                long load = Long.MAX_VALUE;
+                long perCell = Long.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    writePerCell(board, path);
+                    perCell = Math.min(perCell, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    BoardFile.save(board, path, true);
+                    saveCounts = Math.min(saveCounts, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    BoardFile.save(board, path, false);
+                    save = Math.min(save, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    Board loaded = BoardFile.load(path);
+                    load = Math.min(load, System.nanoTime() - start);
+                    if (!Arrays.equals(loaded.mineBits, board.mineBits) || !Arrays.equals(loaded.flagBits, board.flagBits)
+                            || !Arrays.equals(loaded.revealedBits, board.revealedBits)) {
+                        throw new IllegalStateException("Loaded board differs from the saved one");
+                    }
+                }
+
+                System.out.printf("board %dx%d (%.0fM cells), file %d KB without counts%n",
+                        size, size, cells / 1e6, Files.size(path) / 1024);
+                System.out.printf("  per-cell booleans: %8.1f ms%n", perCell / 1e6);
+                System.out.printf("  save:              %8.1f ms%n", save / 1e6);
+                System.out.printf("  save with counts:  %8.1f ms%n", saveCounts / 1e6);
+                System.out.printf("  load:              %8.1f ms%n", load / 1e6);
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    // A board with some openings revealed and some mines flagged
+    private static Board partPlayed(int size) {
+        GameEngine engine = GameEngine.newGame(size, size * size / 6, 42);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < size; i++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            if (engine.getBoard().isMine(x, y)) {
+                engine.toggleFlag(x, y);
+            } else {
+                engine.reveal(x, y);
+            }
+        }
+        return engine.getBoard();
+    }
+
+    // The obvious format: one byte per cell per plane, row by row
+    private static void writePerCell(Board board, Path path) throws IOException {
+        int size = board.getSize();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(size);
+            out.writeInt(board.getMines());
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    out.writeBoolean(board.isMine(x, y));
+                    out.writeBoolean(board.isFlagged(x, y));
+                    out.writeBoolean(board.isRevealed(x, y));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package application;
+
+import javafx.scene.Parent;
+
+/**
+ * A way of drawing the board on screen. MinesweeperApp talks to the view
+ * through this interface so it does not care whether cells are Buttons or
+ * pixels on a Canvas.
+ */
+public interface BoardView {
+    /** Called with the row (x) and column (y) of a clicked cell. */
+    interface CellHandler {
+        void handle(int x, int y);
+    }
+
+    /** The node to put in the scene. */
+    Parent getNode();
+
+    /**
+     * Switches to a new board, clearing every cell. The view reuses its nodes
+     * instead of being thrown away, even if the new board is a different size.
+     */
+    void reset(Board board);
+
+    /** Redraws the given cells (x * size + y) after they were revealed. */
+    default void showCells(int[] cells) {
+        showCells(cells, 0, cells.length);
+    }
+
+    /** Redraws cells[from] to cells[to - 1]. */
+    void showCells(int[] cells, int from, int to);
+
+    /** Redraws the cell at (x, y) after its flag was placed or removed. */
+    void showFlag(int x, int y);
+
+    /**
+     * Tints each hidden cell by its chance of being a mine, indexed like
+     * showCells. Passing null removes the tint.
+     */
+    void showProbabilities(double[] probabilities);
+}
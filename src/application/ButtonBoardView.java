@@ -0,0 +1,183 @@
+package application;
+
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.control.Button;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.GridPane;
+
+import java.util.ArrayDeque;
+
+/**
+ * The original look: one Button per cell in a GridPane. Best for small boards,
+ * since every Button is a full scene graph node.
+ */
+public class ButtonBoardView implements BoardView {
+    private Board board;
+    private int size;
+    private final Image flagImage;
+    private Button[][] buttons;
+    private final GridPane grid;
+
+    // Every Button shares these; the cell comes from the Button's user data (x * size + y)
+    private final EventHandler<ActionEvent> revealHandler;
+    private final EventHandler<MouseEvent> flagHandler;
+
+    // An ImageView can only sit in one Button, so removed flags go back here for reuse
+    private final ArrayDeque<ImageView> flagPool = new ArrayDeque<>();
+    // Buttons left over from a bigger board, reused when the board grows again
+    private final ArrayDeque<Button> buttonPool = new ArrayDeque<>();
+
+    public ButtonBoardView(Board board, CellHandler onReveal, CellHandler onFlag) {
+        this.board = board;
+        this.size = board.getSize();
+        this.flagImage = CellStyles.loadFlag(CellStyles.FLAG_SIZE);
+        this.revealHandler = e -> {
+            int cell = (Integer) ((Node) e.getSource()).getUserData();
+            onReveal.handle(cell / size, cell % size);
+        };
+        this.flagHandler = e -> {
+            if (e.getButton() == MouseButton.SECONDARY) {
+                // Right-click to toggle flag
+                int cell = (Integer) ((Node) e.getSource()).getUserData();
+                onFlag.handle(cell / size, cell % size);
+            }
+        };
+
+        grid = new GridPane();
+        grid.setAlignment(Pos.CENTER);
+        grid.setHgap(5);
+        grid.setVgap(5);
+        createGrid();
+    }
+
+    // Lays out size x size Buttons, taking them from the pool before creating new ones
+    private void createGrid() {
+        if (buttons != null) {
+            for (Button[] row : buttons) {
+                for (Button button : row) {
+                    buttonPool.push(button);
+                }
+            }
+        }
+        grid.getChildren().clear();
+        buttons = new Button[size][size];
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                Button button = buttonPool.poll();
+                if (button == null) {
+                    button = new Button();
+                    button.setMinSize(40, 40);
+                    button.setFont(CellStyles.NUMBER_FONT); // Set once; hidden cells have no text to show it
+                    button.setOnAction(revealHandler);
+                    button.setOnMouseClicked(flagHandler);
+                }
+                button.setUserData(i * size + j);
+                buttons[i][j] = button;
+                showState(i, j);
+                grid.add(button, j, i);
+            }
+        }
+    }
+
+    @Override
+    public Parent getNode() {
+        return grid;
+    }
+
+    /** Keeps the grid if the size is unchanged and only redraws the cells; otherwise lays it out again. */
+    @Override
+    public void reset(Board board) {
+        this.board = board;
+        if (board.getSize() != size) {
+            size = board.getSize();
+            createGrid();
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                showState(i, j);
+            }
+        }
+    }
+
+    // Draws the cell as the board has it, which is hidden for a new game but not for a resumed one
+    private void showState(int x, int y) {
+        clearButton(buttons[x][y]);
+        if (board.isRevealed(x, y)) {
+            showCell(x, y);
+        } else if (board.isFlagged(x, y)) {
+            showFlag(x, y);
+        }
+    }
+
+    // Back to a hidden, unflagged cell
+    private void clearButton(Button button) {
+        button.setDisable(false);
+        button.setText("");
+        button.setOpacity(1);
+        // Set the background for each cell
+        button.setBackground(CellStyles.GRASS_BACKGROUND);
+        if (button.getGraphic() instanceof ImageView) {
+            flagPool.push((ImageView) button.getGraphic());
+        }
+        button.setGraphic(null);
+    }
+
+    @Override
+    public void showCells(int[] cells, int from, int to) {
+        for (int i = from; i < to; i++) {
+            showCell(cells[i] / size, cells[i] % size);
+        }
+    }
+
+    @Override
+    public void showFlag(int x, int y) {
+        if (board.isFlagged(x, y)) {
+            ImageView flagImageView = flagPool.poll();
+            if (flagImageView == null) {
+                flagImageView = new ImageView(flagImage); // Already decoded at FLAG_SIZE
+            }
+            buttons[x][y].setGraphic(flagImageView); // Display flag
+        } else {
+            Node flagImageView = buttons[x][y].getGraphic();
+            buttons[x][y].setGraphic(null); // Remove flag
+            if (flagImageView instanceof ImageView) {
+                flagPool.push((ImageView) flagImageView);
+            }
+        }
+    }
+
+    @Override
+    public void showProbabilities(double[] probabilities) {
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (!board.isRevealed(x, y)) {
+                    buttons[x][y].setBackground(probabilities == null ? CellStyles.GRASS_BACKGROUND
+                            : CellStyles.HEAT_BACKGROUNDS[CellStyles.heatLevel(probabilities[x * size + y])]);
+                }
+            }
+        }
+    }
+
+    private void showCell(int x, int y) {
+        buttons[x][y].setDisable(true);
+
+        int count = board.countNeighboringMines(x, y);
+        if (count > 0) {
+            buttons[x][y].setText(CellStyles.NUMBER_TEXT[count]);
+            buttons[x][y].setBackground(null);
+            buttons[x][y].setTextFill(CellStyles.NUMBER_COLORS[count]);
+            buttons[x][y].setOpacity(100);
+        } else {
+            buttons[x][y].setBackground(CellStyles.GRASS_BACKGROUND); // Drop any hint tint
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package application;
+
+import javafx.geometry.VPos;
+import javafx.scene.Parent;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseButton;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * Draws the whole board on a single Canvas instead of one Button per cell,
+ * so large boards cost one node no matter how many cells they have. Mouse
+ * clicks are mapped back to cells, and after a move only the cells that
+ * changed are redrawn. Cells shrink to fit the canvas under the GPU texture
+ * limit, down to one pixel, so boards bigger than MAX_SIZE need the
+ * zoomable view instead.
+ */
+public class CanvasBoardView implements BoardView {
+    private static final int MAX_CANVAS_PIXELS = 8192; // Stay under the usual GPU texture limit
+    public static final int MAX_SIZE = MAX_CANVAS_PIXELS; // At one pixel per cell
+    private static final int MAX_CELL_PIXELS = 40; // Same size as the Buttons
+    private static final int VIEWPORT_PIXELS = 800;
+
+    private static final Color REVEALED = Color.rgb(225, 225, 215);
+    private static final Color GRID_LINE = Color.rgb(40, 80, 30);
+    private static final Color FLAG = Color.DARKRED;
+
+    private Board board;
+    private int size;
+    private Image flagImage;
+    private int cellSize;
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+    private final ScrollPane scrollPane;
+    private double[] probabilities; // Hint overlay, or null when it is off
+
+    public CanvasBoardView(Board board, CellHandler onReveal, CellHandler onFlag) {
+        canvas = new Canvas();
+        gc = canvas.getGraphicsContext2D();
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+
+        canvas.setOnMouseClicked(e -> {
+            int x = (int) (e.getY() / cellSize); // Rows go down, like the GridPane
+            int y = (int) (e.getX() / cellSize);
+            if (x < 0 || x >= size || y < 0 || y >= size) {
+                return;
+            }
+            if (e.getButton() == MouseButton.PRIMARY) {
+                onReveal.handle(x, y);
+            } else if (e.getButton() == MouseButton.SECONDARY) {
+                onFlag.handle(x, y);
+            }
+        });
+
+        scrollPane = new ScrollPane(canvas);
+        reset(board);
+    }
+
+    @Override
+    public Parent getNode() {
+        return scrollPane;
+    }
+
+    /**
+     * Keeps the Canvas, resizing it and reloading the flag only if the cell size changed.
+     *
+     * @throws IllegalArgumentException if the board is bigger than MAX_SIZE
+     */
+    @Override
+    public void reset(Board board) {
+        if (board.getSize() > MAX_SIZE) {
+            throw new IllegalArgumentException("The Canvas holds at most " + MAX_SIZE + " cells a side, got "
+                    + board.getSize());
+        }
+        this.board = board;
+        this.size = board.getSize();
+        this.probabilities = null;
+        int newCellSize = Math.max(1, Math.min(MAX_CELL_PIXELS, MAX_CANVAS_PIXELS / size));
+        if (newCellSize != cellSize || flagImage == null) {
+            cellSize = newCellSize;
+            gc.setFont(Font.font("Arial", FontWeight.EXTRA_BOLD, cellSize * 0.5));
+            flagImage = CellStyles.loadFlag(cellSize);
+            Image loading = flagImage;
+            // Flags placed before the image finished loading were drawn as plain squares
+            loading.progressProperty().addListener((observable, oldProgress, progress) -> {
+                if (progress.doubleValue() >= 1 && loading == flagImage) {
+                    drawAll();
+                }
+            });
+        }
+        canvas.setWidth(size * cellSize);
+        canvas.setHeight(size * cellSize);
+        scrollPane.setPrefViewportWidth(Math.min(canvas.getWidth(), VIEWPORT_PIXELS));
+        scrollPane.setPrefViewportHeight(Math.min(canvas.getHeight(), VIEWPORT_PIXELS));
+        drawAll();
+    }
+
+    @Override
+    public void showCells(int[] cells, int from, int to) {
+        for (int i = from; i < to; i++) {
+            drawCell(cells[i] / size, cells[i] % size);
+        }
+    }
+
+    @Override
+    public void showFlag(int x, int y) {
+        drawCell(x, y);
+    }
+
+    @Override
+    public void showProbabilities(double[] probabilities) {
+        this.probabilities = probabilities;
+        drawAll();
+    }
+
+    private void drawAll() {
+        // Paint every cell as hidden in one go, then only touch cells that differ
+        gc.setFill(CellStyles.GRASS);
+        gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        if (cellSize >= 4) {
+            gc.setStroke(GRID_LINE);
+            gc.setLineWidth(1);
+            for (int i = 0; i <= size; i++) {
+                double offset = i * cellSize + 0.5;
+                gc.strokeLine(0, offset, canvas.getWidth(), offset);
+                gc.strokeLine(offset, 0, offset, canvas.getHeight());
+            }
+        }
+
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (probabilities != null || board.isRevealed(x, y) || board.isFlagged(x, y)) {
+                    drawCell(x, y);
+                }
+            }
+        }
+    }
+
+    private void drawCell(int x, int y) {
+        double left = y * cellSize;
+        double top = x * cellSize;
+        // Leave the grid line on the top and left edges alone
+        int inset = cellSize >= 4 ? 1 : 0;
+        double inner = cellSize - inset;
+
+        if (board.isRevealed(x, y)) {
+            gc.setFill(REVEALED);
+            gc.fillRect(left + inset, top + inset, inner, inner);
+
+            int count = board.countNeighboringMines(x, y);
+            if (count > 0 && cellSize >= 10) {
+                gc.setFill(CellStyles.NUMBER_COLORS[count]);
+                gc.fillText(CellStyles.NUMBER_TEXT[count], left + cellSize / 2.0, top + cellSize / 2.0);
+            } else if (count > 0) {
+                // Too small for text; tint the cell with the number's color instead
+                gc.setFill(CellStyles.NUMBER_COLORS[count]);
+                gc.fillRect(left + inset, top + inset, inner, inner);
+            }
+        } else {
+            gc.setFill(probabilities == null ? CellStyles.GRASS
+                    : CellStyles.HEAT_COLORS[CellStyles.heatLevel(probabilities[x * size + y])]);
+            gc.fillRect(left + inset, top + inset, inner, inner);
+            if (board.isFlagged(x, y)) {
+                if (cellSize >= 10 && flagImage.getProgress() >= 1 && !flagImage.isError()) {
+                    gc.drawImage(flagImage, left + inset, top + inset, inner, inner);
+                } else {
+                    gc.setFill(FLAG);
+                    gc.fillRect(left + inset, top + inset, inner, inner);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package application;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+/**
+ * Reveals one opening of over 100k cells on the Canvas view, first drawn in
+ * a single call the way moves used to be drawn and then through
+ * BatchedBoardView, which prints its longest pulse once the cascade is done.
+ */
+public class CascadeFrameBenchmark extends Application {
+    private static final int SIZE = 400;
+    private static final int MINES = 40;
+    private static final long SEED = 42;
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+
+    @Override
+    public void start(Stage stage) {
+        GameEngine engine = newEngine();
+        CanvasBoardView canvas = new CanvasBoardView(engine.getBoard(), (x, y) -> { }, (x, y) -> { });
+        BatchedBoardView batched = new BatchedBoardView(canvas);
+        stage.setScene(new Scene(batched.getNode()));
+        stage.show();
+
+        // All at once: the whole cascade lands in one frame
+        int[] cells = engine.reveal(SIZE / 2, SIZE / 2);
+        long start = System.nanoTime();
+        canvas.showCells(cells);
+        System.out.printf("Unbatched: %d cells drawn in one call taking %.1f ms%n", cells.length,
+                (System.nanoTime() - start) / 1e6);
+
+        // Batched: the same cascade on a fresh copy of the board, spread over pulses
+        engine = newEngine();
+        batched.reset(engine.getBoard());
+        batched.showCells(engine.reveal(SIZE / 2, SIZE / 2));
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (!batched.isDrawing()) {
+                    stop();
+                    Platform.exit();
+                }
+            }
+        }.start();
+    }
+
+    private static GameEngine newEngine() {
+        Board board = new Board(SIZE, MINES);
+        board.generateMines(SEED, SIZE / 2, SIZE / 2);
+        return new GameEngine(board);
+    }
+}
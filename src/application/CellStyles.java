@@ -0,0 +1,59 @@
+package application;
+
+import javafx.geometry.Insets;
+import javafx.scene.image.Image;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.CornerRadii;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+
+/**
+ * Fonts, colors, labels and images shared by every cell. Creating these once
+ * keeps revealing and flagging from allocating new objects on every click.
+ */
+final class CellStyles {
+    static final int FLAG_SIZE = 30; // Flag graphic size in pixels on a Button
+    static final String FLAG_RESOURCE = "/egg.png";
+
+    static final Color GRASS = Color.rgb(86, 150, 60);
+    static final Background GRASS_BACKGROUND = new Background(new BackgroundFill(GRASS, CornerRadii.EMPTY, Insets.EMPTY));
+
+    static final Font NUMBER_FONT = Font.font("Arial", FontWeight.EXTRA_BOLD, 20);
+
+    // Indexed by neighbor count; 0 is never drawn
+    static final Color[] NUMBER_COLORS = {
+            null, Color.DARKRED, Color.ORANGE, Color.GOLD, Color.YELLOWGREEN,
+            Color.GREEN, Color.LIGHTSEAGREEN, Color.CYAN, Color.DARKCYAN
+    };
+    static final String[] NUMBER_TEXT = { "", "1", "2", "3", "4", "5", "6", "7", "8" };
+
+    // Hint overlay, from certainly safe (green) to certainly a mine (red) in 10% steps
+    static final Color[] HEAT_COLORS = new Color[11];
+    static final Background[] HEAT_BACKGROUNDS = new Background[HEAT_COLORS.length];
+
+    static {
+        for (int i = 0; i < HEAT_COLORS.length; i++) {
+            HEAT_COLORS[i] = Color.hsb(120 - i * 12, 0.75, 0.85);
+            HEAT_BACKGROUNDS[i] = new Background(new BackgroundFill(HEAT_COLORS[i], CornerRadii.EMPTY, Insets.EMPTY));
+        }
+    }
+
+    /** Index into HEAT_COLORS for a mine probability between 0 and 1. */
+    static int heatLevel(double probability) {
+        return (int) Math.round(probability * (HEAT_COLORS.length - 1));
+    }
+
+    /**
+     * Loads the flag from the module's resources, decoded at the size it will
+     * be drawn. Loading happens in the background, so the Image may still be
+     * empty when this returns; check getProgress() before drawing it directly.
+     */
+    static Image loadFlag(double size) {
+        return new Image(CellStyles.class.getResource(FLAG_RESOURCE).toExternalForm(), size, size, true, true, true);
+    }
+
+    private CellStyles() {
+    }
+}
@@ -0,0 +1,184 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * Backtracking over one independent component of the frontier: a set of
+ * hidden cells (variables) and the revealed numbers that touch them. Variables
+ * touching exactly the same numbers are interchangeable, so they are grouped
+ * and the search picks how many mines each group holds rather than which cells.
+ *
+ * Fill in remaining and unassigned for every number, link each variable to
+ * its numbers, then call run(). Solver only needs to know which variables are
+ * mines in all or none of the solutions; MineProbability also asks for the
+ * solutions to be weighted and counted per mine total.
+ */
+class ComponentEnumeration {
+    final int[] remaining; // Mines each number still needs among the variables
+    final int[] unassigned; // Variables around each number not yet given a value
+    private final int[] assignedMines;
+    private final int[][] numbersOf; // Numbers touching each variable
+    private final int[] numbersOfCount;
+    private final int maxSteps;
+    private final boolean weighted;
+
+    private final int[] groupOf; // Group of each variable
+    private int[] groupSize;
+    private int[] groupLeader; // A variable from each group, to read its numbers
+    private int groupCount;
+
+    private int[] minesInGroup; // Current assignment
+    private int[] fewestMines; // Per group, over all solutions found
+    private int[] mostMines;
+    long solutions;
+    private int steps;
+
+    // Only filled in when weighted, indexed by the component's total mines
+    private double[][] choose;
+    double[] arrangements; // Ways of placing that many mines in the variables
+    private double[][] groupMines; // Per group: mines in the group, summed over those arrangements
+
+    ComponentEnumeration(int varCount, int numberCount, int maxSteps, boolean weighted) {
+        remaining = new int[numberCount];
+        unassigned = new int[numberCount];
+        assignedMines = new int[numberCount];
+        numbersOf = new int[varCount][8];
+        numbersOfCount = new int[varCount];
+        groupOf = new int[varCount];
+        this.maxSteps = maxSteps;
+        this.weighted = weighted;
+    }
+
+    void link(int var, int number) {
+        numbersOf[var][numbersOfCount[var]++] = number;
+    }
+
+    /** Returns false if the search was too large to finish. */
+    boolean run() {
+        int varCount = groupOf.length;
+        groupSize = new int[varCount];
+        groupLeader = new int[varCount];
+        for (int var = 0; var < varCount; var++) {
+            Arrays.sort(numbersOf[var], 0, numbersOfCount[var]);
+            int group = 0;
+            while (group < groupCount && !sameNumbers(groupLeader[group], var)) {
+                group++;
+            }
+            if (group == groupCount) {
+                groupLeader[groupCount++] = var;
+            }
+            groupOf[var] = group;
+            groupSize[group]++;
+        }
+
+        minesInGroup = new int[groupCount];
+        fewestMines = new int[groupCount];
+        mostMines = new int[groupCount];
+        Arrays.fill(fewestMines, Integer.MAX_VALUE);
+        if (weighted) {
+            choose = pascal(varCount);
+            arrangements = new double[varCount + 1];
+            groupMines = new double[groupCount][varCount + 1];
+        }
+        return search(0, 0);
+    }
+
+    boolean alwaysSafe(int var) {
+        return mostMines[groupOf[var]] == 0;
+    }
+
+    boolean alwaysMine(int var) {
+        int group = groupOf[var];
+        return fewestMines[group] == groupSize[group];
+    }
+
+    /**
+     * How many of the arrangements with the given total put a mine on the
+     * variable. Dividing by arrangements[total] gives its probability.
+     */
+    double mineWeight(int var, int total) {
+        int group = groupOf[var];
+        return groupMines[group][total] / groupSize[group];
+    }
+
+    private boolean sameNumbers(int a, int b) {
+        return numbersOfCount[a] == numbersOfCount[b]
+                && Arrays.equals(numbersOf[a], 0, numbersOfCount[a], numbersOf[b], 0, numbersOfCount[b]);
+    }
+
+    private boolean search(int group, int total) {
+        if (++steps > maxSteps) {
+            return false;
+        }
+        if (group == groupCount) {
+            solutions++;
+            for (int g = 0; g < groupCount; g++) {
+                fewestMines[g] = Math.min(fewestMines[g], minesInGroup[g]);
+                mostMines[g] = Math.max(mostMines[g], minesInGroup[g]);
+            }
+            if (weighted) {
+                count(total);
+            }
+            return true;
+        }
+        for (int mines = 0; mines <= groupSize[group]; mines++) {
+            if (assign(group, mines)) {
+                minesInGroup[group] = mines;
+                if (!search(group + 1, total + mines)) {
+                    return false;
+                }
+            }
+            unassign(group, mines);
+        }
+        return true;
+    }
+
+    // A solution with k mines in a group of n cells stands for n choose k arrangements
+    private void count(int total) {
+        double ways = 1;
+        for (int g = 0; g < groupCount; g++) {
+            ways *= choose[groupSize[g]][minesInGroup[g]];
+        }
+        arrangements[total] += ways;
+        for (int g = 0; g < groupCount; g++) {
+            groupMines[g][total] += ways * minesInGroup[g];
+        }
+    }
+
+    // Applies the mines and reports whether every touched number can still be satisfied
+    private boolean assign(int group, int mines) {
+        int leader = groupLeader[group];
+        int size = groupSize[group];
+        boolean ok = true;
+        for (int i = 0; i < numbersOfCount[leader]; i++) {
+            int k = numbersOf[leader][i];
+            unassigned[k] -= size;
+            assignedMines[k] += mines;
+            ok &= assignedMines[k] <= remaining[k] && assignedMines[k] + unassigned[k] >= remaining[k];
+        }
+        return ok;
+    }
+
+    private void unassign(int group, int mines) {
+        int leader = groupLeader[group];
+        int size = groupSize[group];
+        for (int i = 0; i < numbersOfCount[leader]; i++) {
+            int k = numbersOf[leader][i];
+            unassigned[k] += size;
+            assignedMines[k] -= mines;
+        }
+    }
+
+    private static double[][] pascal(int n) {
+        double[][] choose = new double[n + 1][];
+        for (int i = 0; i <= n; i++) {
+            choose[i] = new double[i + 1];
+            choose[i][0] = 1;
+            choose[i][i] = 1;
+            for (int k = 1; k < i; k++) {
+                choose[i][k] = choose[i - 1][k - 1] + choose[i - 1][k];
+            }
+        }
+        return choose;
+    }
+}
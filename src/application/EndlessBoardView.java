@@ -0,0 +1,154 @@
+package application;
+
+import javafx.geometry.VPos;
+import javafx.scene.Parent;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Label;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * A fixed-size window onto an InfiniteBoard. Drag to move around; click to
+ * reveal and right-click to flag, as on the other views. Only the cells in
+ * the window are drawn, so only the chunks under it are kept busy in the
+ * board's cache.
+ *
+ * Moves run on the FX thread: openings on an endless board are small, since
+ * its mine density is kept high enough that they cannot run on forever.
+ */
+public class EndlessBoardView {
+    private static final int CELL_PIXELS = 24;
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 600;
+    private static final double DRAG_THRESHOLD = 4; // Pixels a press can move and still count as a click
+
+    private static final Color REVEALED = Color.rgb(225, 225, 215);
+    private static final Color GRID_LINE = Color.rgb(40, 80, 30);
+    private static final Color FLAG = Color.DARKRED;
+    private static final Color MINE = Color.BLACK;
+
+    private final InfiniteBoard board;
+    private final Runnable onLost;
+    private final Canvas canvas = new Canvas(WIDTH, HEIGHT);
+    private final GraphicsContext gc = canvas.getGraphicsContext2D();
+    private final Label status = new Label();
+    private final BorderPane root;
+
+    // Pixel position of the window's top-left corner, with cell (0, 0) at pixel (0, 0)
+    private double left = -WIDTH / 2.0;
+    private double top = -HEIGHT / 2.0;
+
+    private double pressX;
+    private double pressY;
+    private boolean dragged;
+
+    public EndlessBoardView(InfiniteBoard board, Runnable onLost) {
+        this.board = board;
+        this.onLost = onLost;
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.setFont(Font.font("Arial", FontWeight.EXTRA_BOLD, CELL_PIXELS * 0.5));
+
+        canvas.setOnMousePressed(e -> {
+            pressX = e.getX();
+            pressY = e.getY();
+            dragged = false;
+        });
+        canvas.setOnMouseDragged(e -> {
+            if (!dragged && Math.hypot(e.getX() - pressX, e.getY() - pressY) < DRAG_THRESHOLD) {
+                return;
+            }
+            dragged = true;
+            left -= e.getX() - pressX;
+            top -= e.getY() - pressY;
+            pressX = e.getX();
+            pressY = e.getY();
+            draw();
+        });
+        canvas.setOnMouseClicked(e -> {
+            if (dragged) {
+                return;
+            }
+            int x = (int) Math.floor((top + e.getY()) / CELL_PIXELS); // Rows go down
+            int y = (int) Math.floor((left + e.getX()) / CELL_PIXELS);
+            if (e.getButton() == MouseButton.PRIMARY) {
+                board.reveal(x, y);
+            } else if (e.getButton() == MouseButton.SECONDARY) {
+                board.toggleFlag(x, y);
+            }
+            draw();
+            if (board.isLost()) {
+                onLost.run();
+            }
+        });
+
+        root = new BorderPane(canvas);
+        root.setBottom(status);
+        draw();
+    }
+
+    public Parent getNode() {
+        return root;
+    }
+
+    private void draw() {
+        int firstRow = (int) Math.floor(top / CELL_PIXELS);
+        int firstColumn = (int) Math.floor(left / CELL_PIXELS);
+        int rows = HEIGHT / CELL_PIXELS + 2;
+        int columns = WIDTH / CELL_PIXELS + 2;
+
+        gc.setFill(CellStyles.GRASS);
+        gc.fillRect(0, 0, WIDTH, HEIGHT);
+        gc.setStroke(GRID_LINE);
+        gc.setLineWidth(1);
+        for (int i = 0; i < rows; i++) {
+            double offset = Math.floor((firstRow + i) * CELL_PIXELS - top) + 0.5;
+            gc.strokeLine(0, offset, WIDTH, offset);
+        }
+        for (int j = 0; j < columns; j++) {
+            double offset = Math.floor((firstColumn + j) * CELL_PIXELS - left) + 0.5;
+            gc.strokeLine(offset, 0, offset, HEIGHT);
+        }
+
+        for (int x = firstRow; x < firstRow + rows; x++) {
+            for (int y = firstColumn; y < firstColumn + columns; y++) {
+                drawCell(x, y);
+            }
+        }
+        status.setText(String.format(" Cell (%d, %d)   revealed %d   chunks in memory %d, spilled %d",
+                firstRow + rows / 2, firstColumn + columns / 2, board.getRevealedCells(),
+                board.getChunksInMemory(), board.getChunksSpilled()));
+    }
+
+    private void drawCell(int x, int y) {
+        boolean revealed = board.isRevealed(x, y);
+        boolean flagged = board.isFlagged(x, y);
+        if (!revealed && !flagged) {
+            return; // Already painted as grass
+        }
+        double cellLeft = Math.floor(y * CELL_PIXELS - left) + 1;
+        double cellTop = Math.floor(x * CELL_PIXELS - top) + 1;
+        double inner = CELL_PIXELS - 1;
+
+        if (flagged) {
+            gc.setFill(FLAG);
+            gc.fillRect(cellLeft, cellTop, inner, inner);
+        } else if (board.isMine(x, y)) {
+            gc.setFill(MINE);
+            gc.fillRect(cellLeft, cellTop, inner, inner);
+        } else {
+            gc.setFill(REVEALED);
+            gc.fillRect(cellLeft, cellTop, inner, inner);
+            int count = board.countNeighboringMines(x, y);
+            if (count > 0) {
+                gc.setFill(CellStyles.NUMBER_COLORS[count]);
+                gc.fillText(CellStyles.NUMBER_TEXT[count], cellLeft + inner / 2, cellTop + inner / 2);
+            }
+        }
+    }
+}
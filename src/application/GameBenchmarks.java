@@ -0,0 +1,387 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark suite for the core game operations: mine generation, flood-fill
+ * reveals, neighbor counts, flagging with win detection and whole games.
+ * Each case runs in a JVM of its own, so the JIT profile one case leaves
+ * behind cannot slow down the next, and is run for a few warm-up iterations
+ * before it is measured. Results are printed as CSV, and written to a CSV or
+ * JSON file if one is given, so runs can be compared over time.
+ *
+ * Usage: GameBenchmarks [output.csv|output.json|-] [filter] [sizes] [densities]
+ * where filter only runs benchmarks whose name contains it, and sizes and
+ * densities are comma-separated lists (such as 100,1000 and 0.01,0.15) that
+ * replace the defaults of the cases that take them. Run with
+ * -Dbenchmarks.fork=false to measure every case in this JVM instead.
+ */
+public class GameBenchmarks {
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+    private static final long MIN_ITERATION_NANOS = 100_000_000; // Repeat short benchmarks up to this
+    private static final String RUN_ONE = "--run"; // How a forked JVM is told which case to measure
+
+    private static final String HEADER = "benchmark,size,mines,iterations,ops_per_iteration,ns_per_op_mean,ns_per_op_min,ops_per_sec";
+
+    /** One benchmark at one size; prepare builds what it needs, only in the JVM that runs it. */
+    private record Case(String name, int size, int mines, Supplier<Trial> prepare) {
+    }
+
+    /** setup runs before every call to benchmark and is not timed; benchmark returns how many operations it did. */
+    private record Trial(Runnable setup, LongSupplier benchmark) {
+    }
+
+    private final List<Case> cases = new ArrayList<>();
+    private long sink; // Keeps the JIT from discarding results
+
+    private GameBenchmarks(String sizes, String densities) {
+        int[] sizeList = parseSizes(sizes);
+        double[] densityList = parseDensities(densities);
+        generate(sizeList != null ? sizeList : new int[] { 100, 1000, 3000 },
+                densityList != null ? densityList : new double[] { 0.01, 0.15, 0.5 });
+        revealOpening(sizeList != null ? sizeList : new int[] { 100, 1000, 2000 });
+        countNeighbors(sizeList != null ? sizeList : new int[] { 100, 1000 },
+                densityList != null ? densityList : new double[] { 1.0 / 6 });
+        flagToWin(sizeList != null ? sizeList : new int[] { 100, 1000, 2000 },
+                densityList != null ? densityList : new double[] { 1.0 / 6 });
+        playGames(new int[][] { { 9, 10 }, { 16, 40 }, { 24, 99 } });
+        generateNoGuess(new int[][] { { 9, 10 }, { 16, 40 }, { 22, 99 } });
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals(RUN_ONE)) {
+            runOne(args);
+            return;
+        }
+        Path output = args.length > 0 && !args[0].equals("-") ? Path.of(args[0]) : null;
+        String filter = args.length > 1 ? args[1] : "";
+        String sizes = args.length > 2 ? args[2] : "";
+        String densities = args.length > 3 ? args[3] : "";
+        boolean fork = Boolean.parseBoolean(System.getProperty("benchmarks.fork", "true"));
+        GameBenchmarks benchmarks = new GameBenchmarks(sizes, densities);
+
+        System.out.println(HEADER);
+        List<String> rows = new ArrayList<>();
+        for (Case benchmark : benchmarks.cases) {
+            if (benchmark.name().contains(filter)) {
+                String row = fork ? fork(benchmark, sizes, densities) : benchmarks.measure(benchmark);
+                System.out.println(row);
+                rows.add(row);
+            }
+        }
+        if (output != null) {
+            write(output, rows);
+        }
+        if (!fork) {
+            System.err.println("checksum " + benchmarks.sink);
+        }
+    }
+
+    /** Board allocation plus mine placement. */
+    private void generate(int[] sizes, double[] densities) {
+        for (int size : sizes) {
+            for (double density : densities) {
+                int mines = (int) (density * size * size);
+                add("generateMines", size, mines, () -> {
+                    long[] seed = { 0 };
+                    return new Trial(() -> { }, () -> {
+                        Board board = new Board(size, mines);
+                        board.generateMines(seed[0]++);
+                        sink += board.countNeighboringMines(0, 0);
+                        return 1;
+                    });
+                });
+            }
+        }
+    }
+
+    /**
+     * Worst-case opening: a board without mines, revealed from the middle.
+     * Labelling the openings is measured on its own, then the reveal both
+     * with labels (which the first click builds) and by flood fill alone.
+     * Reported per cell.
+     */
+    private void revealOpening(int[] sizes) {
+        for (int size : sizes) {
+            add("labelZeroRegions", size, 0, () -> {
+                Board[] board = new Board[1];
+                return new Trial(() -> {
+                    board[0] = new Board(size, 0);
+                    board[0].generateMines(0);
+                }, () -> {
+                    sink += new ZeroRegions(board[0]).end(0);
+                    return (long) size * size;
+                });
+            });
+            for (boolean labelOpenings : new boolean[] { true, false }) {
+                add(labelOpenings ? "revealOpening" : "floodFillOpening", size, 0, () -> {
+                    RevealEngine[] engine = new RevealEngine[1];
+                    return new Trial(() -> {
+                        Board board = new Board(size, 0);
+                        board.generateMines(0);
+                        engine[0] = new RevealEngine(board, labelOpenings);
+                    }, () -> {
+                        int[] cells = engine[0].reveal(size / 2, size / 2);
+                        return cells.length;
+                    });
+                });
+            }
+        }
+    }
+
+    /** Every cell's neighbor count, from bit windows and by rescanning. Reported per cell. */
+    private void countNeighbors(int[] sizes, double[] densities) {
+        for (int size : sizes) {
+            for (double density : densities) {
+                int mines = (int) (density * size * size);
+                add("countNeighboringMines", size, mines, () -> {
+                    Board board = new Board(size, mines);
+                    board.generateMines(42);
+                    return new Trial(() -> { }, () -> {
+                        long sum = 0;
+                        for (int x = 0; x < size; x++) {
+                            for (int y = 0; y < size; y++) {
+                                sum += board.countNeighboringMines(x, y);
+                            }
+                        }
+                        sink += sum;
+                        return (long) size * size;
+                    });
+                });
+                add("scanNeighboringMines", size, mines, () -> {
+                    Board board = new Board(size, mines);
+                    board.generateMines(42);
+                    return new Trial(() -> { }, () -> {
+                        long sum = 0;
+                        for (int x = 0; x < size; x++) {
+                            for (int y = 0; y < size; y++) {
+                                sum += NeighborCountBenchmark.scanNeighboringMines(board, x, y);
+                            }
+                        }
+                        sink += sum;
+                        return (long) size * size;
+                    });
+                });
+            }
+        }
+    }
+
+    /** Flags every mine, checking for a win after each flag. Reported per flag. */
+    private void flagToWin(int[] sizes, double[] densities) {
+        for (int size : sizes) {
+            for (double density : densities) {
+                int mines = (int) (density * size * size);
+                add("toggleFlag", size, mines, () -> {
+                    Board template = new Board(size, mines);
+                    template.generateMines(42);
+                    int[] mineCells = new int[mines];
+                    int n = 0;
+                    for (int x = 0; x < size; x++) {
+                        for (int y = 0; y < size; y++) {
+                            if (template.isMine(x, y)) {
+                                mineCells[n++] = x * size + y;
+                            }
+                        }
+                    }
+
+                    GameEngine[] engine = new GameEngine[1];
+                    return new Trial(() -> {
+                        Board board = new Board(size, mines);
+                        board.generateMines(42);
+                        engine[0] = new GameEngine(board);
+                    }, () -> {
+                        for (int cell : mineCells) {
+                            engine[0].toggleFlag(cell / size, cell % size);
+                        }
+                        if (engine[0].getState() != GameEngine.State.WON) {
+                            throw new IllegalStateException("Flagging every mine should win");
+                        }
+                        return mineCells.length;
+                    });
+                });
+            }
+        }
+    }
+
+    /** Whole games played by clicking random hidden cells until the game ends. Reported per game. */
+    private void playGames(int[][] levels) {
+        int games = 100;
+        for (int[] level : levels) {
+            int size = level[0];
+            int mines = level[1];
+            add("randomGame", size, mines, () -> {
+                SplittableRandom random = new SplittableRandom(42);
+                return new Trial(() -> { }, () -> {
+                    for (int game = 0; game < games; game++) {
+                        GameEngine engine = GameEngine.newGame(size, mines, random.nextLong());
+                        while (engine.getState() == GameEngine.State.PLAYING) {
+                            int x = random.nextInt(size);
+                            int y = random.nextInt(size);
+                            if (!engine.getBoard().isRevealed(x, y)) {
+                                sink += engine.reveal(x, y).length;
+                            }
+                        }
+                    }
+                    return games;
+                });
+            });
+        }
+    }
+
+    /** No-guess generation on every core, reported per board and per candidate tried. */
+    private void generateNoGuess(int[][] levels) {
+        for (int[] level : levels) {
+            int size = level[0];
+            int mines = level[1];
+            add("generateNoGuess", size, mines, () -> {
+                NoGuessGenerator generator = new NoGuessGenerator(size, mines, size / 2, size / 2);
+                long[] seed = { 0 };
+                return new Trial(() -> { }, () -> {
+                    sink += generator.generate(seed[0]++).getSeed();
+                    return 1;
+                });
+            });
+            add("noGuessCandidates", size, mines, () -> {
+                NoGuessGenerator generator = new NoGuessGenerator(size, mines, size / 2, size / 2);
+                long[] seed = { 0 };
+                return new Trial(() -> { }, () -> {
+                    sink += generator.generate(seed[0]++).getSeed();
+                    return generator.getBoardsTried();
+                });
+            });
+        }
+    }
+
+    private void add(String name, int size, int mines, Supplier<Trial> prepare) {
+        cases.add(new Case(name, size, mines, prepare));
+    }
+
+    /** Warms the case up, measures it and returns its CSV row. */
+    private String measure(Case benchmark) {
+        Trial trial = benchmark.prepare().get();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            runIteration(trial);
+        }
+
+        double[] nsPerOp = new double[MEASURED_ITERATIONS];
+        long ops = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long[] result = runIteration(trial);
+            ops = result[1];
+            nsPerOp[i] = (double) result[0] / ops;
+        }
+
+        double mean = Arrays.stream(nsPerOp).average().orElse(0);
+        double min = Arrays.stream(nsPerOp).min().orElse(0);
+        return String.format("%s,%d,%d,%d,%d,%.2f,%.2f,%.0f", benchmark.name(), benchmark.size(), benchmark.mines(),
+                MEASURED_ITERATIONS, ops, mean, min, 1e9 / mean);
+    }
+
+    // Runs the benchmark until it has taken at least MIN_ITERATION_NANOS; setup is not timed
+    private static long[] runIteration(Trial trial) {
+        long nanos = 0;
+        long ops = 0;
+        while (nanos < MIN_ITERATION_NANOS) {
+            trial.setup().run();
+            long start = System.nanoTime();
+            ops += trial.benchmark().getAsLong();
+            nanos += System.nanoTime() - start;
+        }
+        return new long[] { nanos, ops };
+    }
+
+    /*
+     * Measures one case in a new JVM with this one's class or module path and
+     * -X options (such as -Xmx), and returns the row it prints. The sizes and
+     * densities are passed on so the new JVM lists the same cases.
+     */
+    private static String fork(Case benchmark, String sizes, String densities)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (option.startsWith("-X")) {
+                command.add(option);
+            }
+        }
+        Module module = GameBenchmarks.class.getModule();
+        String modulePath = System.getProperty("jdk.module.path");
+        if (module.isNamed() && modulePath != null) {
+            command.addAll(List.of("--module-path", modulePath,
+                    "--module", module.getName() + "/" + GameBenchmarks.class.getName()));
+        } else {
+            command.addAll(List.of("-cp", System.getProperty("java.class.path"), GameBenchmarks.class.getName()));
+        }
+        command.addAll(List.of(RUN_ONE, benchmark.name(), Integer.toString(benchmark.size()),
+                Integer.toString(benchmark.mines()), sizes, densities));
+
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        String row;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            row = reader.readLine();
+        }
+        if (process.waitFor() != 0 || row == null) {
+            throw new IllegalStateException(benchmark.name() + " at size " + benchmark.size()
+                    + " failed in its own JVM");
+        }
+        return row;
+    }
+
+    // The forked side: --run name size mines sizes densities
+    private static void runOne(String[] args) {
+        GameBenchmarks benchmarks = new GameBenchmarks(args[4], args[5]);
+        int size = Integer.parseInt(args[2]);
+        int mines = Integer.parseInt(args[3]);
+        for (Case benchmark : benchmarks.cases) {
+            if (benchmark.name().equals(args[1]) && benchmark.size() == size && benchmark.mines() == mines) {
+                System.out.println(benchmarks.measure(benchmark));
+                return;
+            }
+        }
+        throw new IllegalArgumentException("No benchmark " + args[1] + " at size " + size + " with " + mines + " mines");
+    }
+
+    // CSV with a header row, or for a .json path an array with one object per row
+    private static void write(Path path, List<String> rows) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            if (!path.toString().endsWith(".json")) {
+                out.println(HEADER);
+                rows.forEach(out::println);
+                return;
+            }
+            String[] keys = HEADER.split(",");
+            out.println("[");
+            for (int r = 0; r < rows.size(); r++) {
+                String[] values = rows.get(r).split(",");
+                StringBuilder object = new StringBuilder("  {");
+                for (int k = 0; k < keys.length; k++) {
+                    object.append(k > 0 ? ", " : "").append('"').append(keys[k]).append("\": ");
+                    object.append(k == 0 ? '"' + values[k] + '"' : values[k]);
+                }
+                out.println(object.append(r + 1 < rows.size() ? "}," : "}"));
+            }
+            out.println("]");
+        }
+    }
+
+    private static int[] parseSizes(String text) {
+        return text.isEmpty() ? null : Arrays.stream(text.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static double[] parseDensities(String text) {
+        return text.isEmpty() ? null : Arrays.stream(text.split(",")).mapToDouble(Double::parseDouble).toArray();
+    }
+}
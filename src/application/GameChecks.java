@@ -0,0 +1,335 @@
+package application;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Checks the fast paths against plain reference versions on random boards,
+ * so a change to the bit planes, the solver or the opening labels can be
+ * verified before it is committed. Each check prints how many boards it
+ * covered; the first difference stops the run with an IllegalStateException
+ * naming the board.
+ *
+ * Usage: GameChecks [boards per check] [seed]
+ */
+public class GameChecks {
+    private static final int MAX_LAYOUTS = 2_000_000; // Brute force lists no more mine layouts than this
+
+    private final int boards;
+    private final long seed;
+
+    private GameChecks(int boards, long seed) {
+        this.boards = boards;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) {
+        int boards = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        GameChecks checks = new GameChecks(boards, seed);
+
+        checks.bitPlanes();
+        checks.probabilities();
+        checks.openings();
+    }
+
+    /*
+     * Mine placement, neighbor counts and the flood fill against boolean
+     * grids and a breadth-first reveal that reads them cell by cell. Flags
+     * are scattered over each board first, so some openings are cut short.
+     */
+    private void bitPlanes() {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int n = 0; n < boards; n++) {
+            Board board = randomBoard(random);
+            int size = board.getSize();
+            int cells = size * size;
+            String name = describe(board);
+
+            boolean[] mine = new boolean[cells];
+            int mines = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                mine[cell] = board.isMine(cell / size, cell % size);
+                mines += mine[cell] ? 1 : 0;
+            }
+            if (mines != board.getMines()) {
+                throw new IllegalStateException(name + " has " + mines + " mines");
+            }
+            for (int cell = 0; cell < cells; cell++) {
+                int expected = referenceCount(mine, size, cell);
+                int actual = board.countNeighboringMines(cell / size, cell % size);
+                if (actual != expected) {
+                    throw new IllegalStateException(name + ": cell " + cell + " counts " + actual + ", not " + expected);
+                }
+            }
+
+            boolean[] flagged = new boolean[cells];
+            for (int i = random.nextInt(size + 1); i > 0; i--) {
+                int cell = random.nextInt(cells);
+                flagged[cell] = true;
+                board.setFlagged(cell / size, cell % size, true);
+            }
+            boolean[] revealed = new boolean[cells];
+            RevealEngine engine = new RevealEngine(board, false);
+            for (int i = 0; i < 5 && mines < cells; i++) {
+                int start = randomSafeCell(mine, random);
+                int[] expected = referenceReveal(mine, flagged, revealed, size, start);
+                int[] actual = engine.reveal(start / size, start % size);
+                Arrays.sort(expected);
+                Arrays.sort(actual);
+                if (!Arrays.equals(actual, expected)) {
+                    throw new IllegalStateException(name + ": revealing " + start + " gave " + actual.length
+                            + " cells, not " + expected.length);
+                }
+                checkRevealed(board, revealed, name);
+            }
+        }
+        System.out.printf("bitPlanes: %d boards ok%n", boards);
+    }
+
+    /*
+     * MineProbability against brute force: every way of placing the mines on
+     * the hidden cells that fits the revealed numbers is counted. Small boards
+     * are played by revealing random safe cells, and compared once few enough
+     * layouts are left to list. The same MineProbability is used for the whole
+     * game, so its cached components are checked too.
+     */
+    private void probabilities() {
+        SplittableRandom random = new SplittableRandom(seed);
+        int positions = 0;
+        for (int n = 0; n < boards; n++) {
+            int size = 4 + random.nextInt(3);
+            int mines = 2 + random.nextInt(size * size / 4 - 1);
+            GameEngine engine = GameEngine.newGame(size, mines, random.nextLong(), false);
+            Board board = engine.getBoard();
+            String name = describe(board);
+            MineProbability probability = new MineProbability(board);
+
+            int compared = 0;
+            while (engine.getState() == GameEngine.State.PLAYING && compared < 4) {
+                int cell;
+                do {
+                    cell = random.nextInt(size * size);
+                } while (board.isMine(cell / size, cell % size) || board.isRevealed(cell / size, cell % size));
+                engine.reveal(cell / size, cell % size);
+                if (engine.getState() != GameEngine.State.PLAYING) {
+                    break;
+                }
+
+                double[] expected = bruteForceProbabilities(board);
+                if (expected == null) {
+                    continue; // Too many layouts yet
+                }
+                double[] actual = probability.compute();
+                for (int c = 0; c < expected.length; c++) {
+                    if (Math.abs(actual[c] - expected[c]) > 1e-9) {
+                        throw new IllegalStateException(name + ": cell " + c + " has probability " + actual[c]
+                                + ", not " + expected[c]);
+                    }
+                }
+                compared++;
+                positions++;
+            }
+        }
+        System.out.printf("probabilities: %d positions on %d boards ok%n", positions, boards);
+    }
+
+    // Null if there are over MAX_LAYOUTS ways to place the mines on the hidden cells
+    private static double[] bruteForceProbabilities(Board board) {
+        int size = board.getSize();
+        int cells = size * size;
+        int[] hidden = new int[cells];
+        int h = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (!board.isRevealed(cell / size, cell % size)) {
+                hidden[h++] = cell;
+            }
+        }
+        int mines = board.getMines();
+        double layouts = 1;
+        for (int i = 0; i < mines; i++) {
+            layouts = layouts * (h - i) / (i + 1);
+        }
+        if (layouts > MAX_LAYOUTS) {
+            return null;
+        }
+
+        // Each revealed number as the hidden cells around it (bits into hidden) and the mines it needs
+        long[] around = new long[cells];
+        int[] needed = new int[cells];
+        int numbers = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            int x = cell / size;
+            int y = cell % size;
+            if (!board.isRevealed(x, y)) {
+                continue;
+            }
+            for (int i = 0; i < h; i++) {
+                int dx = hidden[i] / size - x;
+                int dy = hidden[i] % size - y;
+                if (Math.abs(dx) <= 1 && Math.abs(dy) <= 1) {
+                    around[numbers] |= 1L << i;
+                }
+            }
+            needed[numbers++] = board.countNeighboringMines(x, y);
+        }
+
+        // Every h-bit mask with exactly `mines` bits set, in increasing order (Gosper's hack)
+        double[] mineCount = new double[cells];
+        long total = 0;
+        long last = mines == 0 ? 0 : ((1L << mines) - 1) << (h - mines);
+        long layout = (1L << mines) - 1;
+        while (true) {
+            boolean fits = true;
+            for (int k = 0; k < numbers && fits; k++) {
+                fits = Long.bitCount(layout & around[k]) == needed[k];
+            }
+            if (fits) {
+                total++;
+                for (long bits = layout; bits != 0; bits &= bits - 1) {
+                    mineCount[hidden[Long.numberOfTrailingZeros(bits)]]++;
+                }
+            }
+            if (layout == last) {
+                break;
+            }
+            long lowest = layout & -layout;
+            long ripple = layout + lowest;
+            layout = ripple | ((layout ^ ripple) >>> 2) / lowest;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            mineCount[cell] /= total;
+        }
+        return mineCount;
+    }
+
+    /*
+     * Revealing through the opening labels against the flood fill alone: two
+     * copies of each board get the same flags, unflags and reveals, one with
+     * labels and one without, and must reveal the same cells every time.
+     * Flags land on zero cells too, so an opening can be cut short and then
+     * opened again once the flag is gone.
+     */
+    private void openings() {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int n = 0; n < boards; n++) {
+            Board labelled = randomBoard(random);
+            int size = labelled.getSize();
+            int cells = size * size;
+            if (labelled.getMines() == cells) {
+                continue;
+            }
+            Board flooded = new Board(size, labelled.getMines());
+            flooded.generateMines(labelled.getSeed());
+            String name = describe(labelled);
+            boolean[] mine = new boolean[cells];
+            for (int cell = 0; cell < cells; cell++) {
+                mine[cell] = labelled.isMine(cell / size, cell % size);
+            }
+
+            RevealEngine withLabels = new RevealEngine(labelled, true);
+            RevealEngine withoutLabels = new RevealEngine(flooded, false);
+            for (int move = 0; move < 20; move++) {
+                int cell = random.nextInt(cells);
+                int x = cell / size;
+                int y = cell % size;
+                if (random.nextInt(4) == 0) {
+                    if (labelled.isRevealed(x, y)) {
+                        continue;
+                    }
+                    boolean flag = !labelled.isFlagged(x, y);
+                    labelled.setFlagged(x, y, flag);
+                    flooded.setFlagged(x, y, flag);
+                    continue;
+                }
+                cell = randomSafeCell(mine, random);
+                int[] expected = withoutLabels.reveal(cell / size, cell % size);
+                int[] actual = withLabels.reveal(cell / size, cell % size);
+                Arrays.sort(expected);
+                Arrays.sort(actual);
+                if (!Arrays.equals(actual, expected) || !Arrays.equals(labelled.revealedBits, flooded.revealedBits)) {
+                    throw new IllegalStateException(name + ": revealing " + cell + " through the labels gave "
+                            + actual.length + " cells, not " + expected.length);
+                }
+            }
+        }
+        System.out.printf("openings: %d boards ok%n", boards);
+    }
+
+    // Sizes up to 70 so rows cross word boundaries; sometimes dense, and now and then full or empty
+    private static Board randomBoard(SplittableRandom random) {
+        int size = 1 + random.nextInt(70);
+        int cells = size * size;
+        int mines = random.nextInt(8) == 0 ? random.nextInt(cells + 1) : random.nextInt(cells / 4 + 1);
+        Board board = new Board(size, mines);
+        board.generateMines(random.nextLong());
+        return board;
+    }
+
+    private static String describe(Board board) {
+        return "board " + board.getSize() + "x" + board.getSize() + " with " + board.getMines() + " mines, seed "
+                + board.getSeed();
+    }
+
+    private static int randomSafeCell(boolean[] mine, SplittableRandom random) {
+        int cell;
+        do {
+            cell = random.nextInt(mine.length);
+        } while (mine[cell]);
+        return cell;
+    }
+
+    private static int referenceCount(boolean[] mine, int size, int cell) {
+        int x = cell / size;
+        int y = cell % size;
+        int count = 0;
+        for (int i = x - 1; i <= x + 1; i++) {
+            for (int j = y - 1; j <= y + 1; j++) {
+                if ((i != x || j != y) && i >= 0 && i < size && j >= 0 && j < size && mine[i * size + j]) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Breadth-first over the boolean grids; revealed is updated the way the board should be
+    private static int[] referenceReveal(boolean[] mine, boolean[] flagged, boolean[] revealed, int size, int start) {
+        if (revealed[start] || flagged[start]) {
+            return new int[0];
+        }
+        int[] queue = new int[size * size];
+        int head = 0;
+        int tail = 0;
+        revealed[start] = true;
+        queue[tail++] = start;
+        while (head < tail) {
+            int cell = queue[head++];
+            if (referenceCount(mine, size, cell) > 0) {
+                continue;
+            }
+            int x = cell / size;
+            int y = cell % size;
+            for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, size - 1); i++) {
+                for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, size - 1); j++) {
+                    int next = i * size + j;
+                    if (!revealed[next] && !flagged[next]) {
+                        revealed[next] = true;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(queue, tail);
+    }
+
+    private static void checkRevealed(Board board, boolean[] revealed, String name) {
+        int size = board.getSize();
+        for (int cell = 0; cell < revealed.length; cell++) {
+            if (board.isRevealed(cell / size, cell % size) != revealed[cell]) {
+                throw new IllegalStateException(name + ": cell " + cell + " should "
+                        + (revealed[cell] ? "" : "not ") + "be revealed");
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package application;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The client side of the GameServer protocol, shared by the programs that
+ * drive a server: sending requests and reading replies from a buffer that
+ * GameServer.fill tops up.
+ */
+final class GameClient {
+    private GameClient() {
+    }
+
+    /** Writes out everything put in the buffer since it was cleared. */
+    static void send(SocketChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+    }
+
+    /** Reads a status byte, turning an error reply into an exception. */
+    static byte expectStatus(SocketChannel channel, ByteBuffer in) throws IOException {
+        readFully(channel, in, 1);
+        byte status = in.get();
+        if (status == GameServer.STATUS_ERROR) {
+            readFully(channel, in, 2);
+            int length = in.getShort();
+            readFully(channel, in, length);
+            byte[] text = new byte[length];
+            in.get(text);
+            throw new IOException("Server refused: " + new String(text, StandardCharsets.UTF_8));
+        }
+        return status;
+    }
+
+    static void readFully(SocketChannel channel, ByteBuffer in, int needed) throws IOException {
+        if (!GameServer.fill(channel, in, needed)) {
+            throw new IOException("Server closed the connection");
+        }
+    }
+
+    /** Reads past part of a reply, such as cells the caller does not need. */
+    static void skip(SocketChannel channel, ByteBuffer in, long bytes) throws IOException {
+        while (bytes > 0) {
+            int chunk = (int) Math.min(bytes, in.capacity());
+            readFully(channel, in, chunk);
+            in.position(in.position() + chunk);
+            bytes -= chunk;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package application;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The game rules, separated from the JavaFX buttons so a game can be played
+ * headlessly. MinesweeperApp only renders what the engine reports.
+ */
+public class GameEngine {
+    public enum State { PLAYING, WON, LOST }
+
+    private final Board board;
+    private final RevealEngine revealEngine;
+    private int remainingFlags;
+    private State state = State.PLAYING;
+
+    // Running counters so checking for a win is O(1) per move
+    private int correctFlags; // flags on mines
+    private int wrongFlags; // flags on safe cells
+    private int revealedSafe; // revealed cells (never mines)
+    private final int safeCells;
+
+    public GameEngine(Board board) {
+        this(board, true);
+    }
+
+    /**
+     * An engine that flood fills every opening instead of labelling them if
+     * labelOpenings is false, for bots, the no-guess generator and server
+     * sessions (see RevealEngine).
+     */
+    public GameEngine(Board board, boolean labelOpenings) {
+        this.board = board;
+        this.revealEngine = new RevealEngine(board, labelOpenings);
+        this.remainingFlags = board.getMines();
+        this.safeCells = board.getSize() * board.getSize() - board.getMines();
+        countExistingMoves();
+    }
+
+    // A board loaded from a file may already be part played
+    private void countExistingMoves() {
+        boolean mineRevealed = false;
+        for (int word = 0; word < board.mineBits.length; word++) {
+            long mines = board.mineBits[word];
+            revealedSafe += Long.bitCount(board.revealedBits[word] & ~mines);
+            correctFlags += Long.bitCount(board.flagBits[word] & mines);
+            wrongFlags += Long.bitCount(board.flagBits[word] & ~mines);
+            mineRevealed |= (board.revealedBits[word] & mines) != 0;
+        }
+        remainingFlags -= correctFlags + wrongFlags;
+        if (mineRevealed) {
+            state = State.LOST;
+        } else if (revealedSafe > 0 || correctFlags + wrongFlags > 0) {
+            checkWin();
+        }
+    }
+
+    /** Creates a board of the given size with randomly placed mines. */
+    public static GameEngine newGame(int size, int mines) {
+        return newGame(size, mines, new SplittableRandom().nextLong());
+    }
+
+    /** Creates a reproducible board: the same seed always places the same mines. */
+    public static GameEngine newGame(int size, int mines, long seed) {
+        return newGame(size, mines, seed, true);
+    }
+
+    /** Like newGame(size, mines, seed), with or without labelled openings. */
+    public static GameEngine newGame(int size, int mines, long seed, boolean labelOpenings) {
+        Board board = new Board(size, mines);
+        board.generateMines(seed);
+        return new GameEngine(board, labelOpenings);
+    }
+
+    /**
+     * Reveals the cell at (x, y). Hitting a mine loses the game.
+     *
+     * @return the newly revealed cells as x * size + y
+     * @throws IllegalArgumentException if the cell is off the board
+     */
+    public int[] reveal(int x, int y) {
+        checkCell(x, y);
+        int count = revealCells(x, y);
+        return Arrays.copyOf(revealEngine.lastRevealed(), count);
+    }
+
+    // Reveals like reveal(x, y), leaving the cells in revealEngine.lastRevealed()
+    private int revealCells(int x, int y) {
+        if (state != State.PLAYING || board.isFlagged(x, y)) {
+            return 0;
+        }
+        if (board.isMine(x, y)) {
+            state = State.LOST;
+            return 0;
+        }
+        int count = revealEngine.revealCells(x, y);
+        revealedSafe += count;
+        checkWin();
+        return count;
+    }
+
+    /**
+     * Plays a batch of moves in order and records what they changed in diff,
+     * which is cleared first. Every move is checked before any is played, so a
+     * batch with a cell off the board changes nothing. Moves after the game
+     * ends are skipped. Reusing the batch and the diff keeps this allocation
+     * free once their buffers have grown.
+     *
+     * @throws IllegalArgumentException if a move is off the board
+     */
+    public void apply(MoveBatch batch, MoveDiff diff) {
+        int size = board.getSize();
+        for (int i = 0; i < batch.size(); i++) {
+            int x = batch.x(i);
+            int y = batch.y(i);
+            if (x < 0 || x >= size || y < 0 || y >= size) {
+                throw new IllegalArgumentException("Move " + i + " at (" + x + ", " + y + ") is off the board");
+            }
+        }
+
+        diff.clear();
+        int applied = 0;
+        for (; applied < batch.size() && state == State.PLAYING; applied++) {
+            int x = batch.x(applied);
+            int y = batch.y(applied);
+            switch (batch.type(applied)) {
+                case MoveBatch.REVEAL:
+                    revealInto(x, y, diff);
+                    break;
+                case MoveBatch.FLAG:
+                case MoveBatch.UNFLAG:
+                    boolean flag = batch.type(applied) == MoveBatch.FLAG;
+                    if (board.isFlagged(x, y) != flag && toggleFlag(x, y)) {
+                        diff.addFlagChange(x * size + y);
+                    }
+                    break;
+                default:
+                    chord(x, y, diff);
+                    break;
+            }
+        }
+        diff.finish(board, state, applied);
+    }
+
+    private void revealInto(int x, int y, MoveDiff diff) {
+        int count = revealCells(x, y);
+        diff.addRevealed(revealEngine.lastRevealed(), count);
+        if (state == State.LOST) {
+            diff.setExploded(x * board.getSize() + y);
+        }
+    }
+
+    /*
+     * Chording a revealed number that has as many flags around it as mines
+     * reveals its other hidden neighbors; a wrong flag means one of them is a
+     * mine, which loses the game. Anything else does nothing.
+     */
+    private void chord(int x, int y, MoveDiff diff) {
+        int mines = board.countNeighboringMines(x, y);
+        if (!board.isRevealed(x, y) || mines == 0) {
+            return;
+        }
+        int size = board.getSize();
+        int x0 = Math.max(x - 1, 0);
+        int x1 = Math.min(x + 1, size - 1);
+        int y0 = Math.max(y - 1, 0);
+        int y1 = Math.min(y + 1, size - 1);
+        int flags = 0;
+        for (int nx = x0; nx <= x1; nx++) {
+            for (int ny = y0; ny <= y1; ny++) {
+                if (board.isFlagged(nx, ny)) {
+                    flags++;
+                }
+            }
+        }
+        if (flags != mines) {
+            return;
+        }
+        for (int nx = x0; nx <= x1 && state == State.PLAYING; nx++) {
+            for (int ny = y0; ny <= y1 && state == State.PLAYING; ny++) {
+                if (!board.isRevealed(nx, ny) && !board.isFlagged(nx, ny)) {
+                    revealInto(nx, ny, diff);
+                }
+            }
+        }
+    }
+
+    /**
+     * Places or removes a flag on the cell at (x, y).
+     *
+     * @return true if the flag changed
+     * @throws IllegalArgumentException if the cell is off the board
+     */
+    public boolean toggleFlag(int x, int y) {
+        checkCell(x, y);
+        if (state != State.PLAYING || board.isRevealed(x, y)) {
+            return false;
+        }
+        boolean flagged = board.isFlagged(x, y);
+        if (!flagged && remainingFlags > 0) {
+            board.setFlagged(x, y, true);
+            remainingFlags--;
+            if (board.isMine(x, y)) {
+                correctFlags++;
+            } else {
+                wrongFlags++;
+            }
+            checkWin();
+            return true;
+        } else if (flagged) {
+            board.setFlagged(x, y, false);
+            remainingFlags++;
+            if (board.isMine(x, y)) {
+                correctFlags--;
+            } else {
+                wrongFlags--;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void checkCell(int x, int y) {
+        int size = board.getSize();
+        if (x < 0 || x >= size || y < 0 || y >= size) {
+            throw new IllegalArgumentException("Cell (" + x + ", " + y + ") is off the board");
+        }
+    }
+
+    // Won when every mine is flagged with no wrong flags, or every safe cell is revealed
+    private void checkWin() {
+        if ((correctFlags == board.getMines() && wrongFlags == 0) || revealedSafe == safeCells) {
+            state = State.WON;
+        }
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public int getRemainingFlags() {
+        return remainingFlags;
+    }
+
+    public int getCorrectFlags() {
+        return correctFlags;
+    }
+
+    public int getWrongFlags() {
+        return wrongFlags;
+    }
+
+    public int getRevealedSafe() {
+        return revealedSafe;
+    }
+
+    public State getState() {
+        return state;
+    }
+}
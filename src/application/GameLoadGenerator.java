@@ -0,0 +1,224 @@
+package application;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Plays many games against a GameServer at once and reports the moves per
+ * second and the latency of a move (request sent to reply read). Each session
+ * is a thread with its own connection that plays random hidden cells, with
+ * every eighth move a flag, and starts a new game when one ends.
+ *
+ * Latencies go into a histogram per session, merged at the end, so recording
+ * a move allocates nothing. Buckets are 1 us wide up to LINEAR_MICROS and
+ * then 1/64 of a power of two, so percentiles are within 2%.
+ *
+ * With no port, a server is started in this JVM on a free port.
+ *
+ * Usage: GameLoadGenerator [sessions] [seconds] [size] [mines] [host] [port]
+ */
+public class GameLoadGenerator {
+    private static final int LINEAR_MICROS = 1024;
+    private static final int SUB_BUCKETS = 64;
+    private static final int BUCKETS = LINEAR_MICROS + (40 - 10) * SUB_BUCKETS; // Up to 2^40 us
+    private static final long CLIENT_STACK_BYTES = 256 * 1024;
+
+    private final InetSocketAddress address;
+    private final int size;
+    private final int mines;
+
+    public GameLoadGenerator(InetSocketAddress address, int size, int mines) {
+        this.address = address;
+        this.size = size;
+        this.mines = mines;
+    }
+
+    /** What one session did; the histogram is indexed by bucket(). */
+    private static final class Result {
+        final long[] histogram = new long[BUCKETS];
+        long moves;
+        long games;
+        IOException failure;
+    }
+
+    /** Runs the sessions for the given time and prints the totals. */
+    public void run(int sessions, double seconds) throws InterruptedException {
+        List<Result> results = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        CountDownLatch connected = new CountDownLatch(sessions);
+        long[] deadline = new long[1];
+        CountDownLatch go = new CountDownLatch(1);
+
+        for (int i = 0; i < sessions; i++) {
+            Result result = new Result();
+            results.add(result);
+            long seed = i;
+            Thread thread = new Thread(null, () -> {
+                SocketChannel channel;
+                try {
+                    channel = SocketChannel.open(address);
+                } catch (IOException e) {
+                    result.failure = e;
+                    return;
+                } finally {
+                    connected.countDown();
+                }
+                try (channel) {
+                    channel.socket().setTcpNoDelay(true);
+                    go.await();
+                    play(channel, new SplittableRandom(seed), deadline[0], result);
+                } catch (IOException e) {
+                    result.failure = e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "client-" + i, CLIENT_STACK_BYTES);
+            threads.add(thread);
+            thread.start();
+        }
+
+        connected.await();
+        long start = System.nanoTime();
+        deadline[0] = start + (long) (seconds * 1e9);
+        go.countDown(); // Publishes the deadline to the sessions
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long[] histogram = new long[BUCKETS];
+        long moves = 0;
+        long games = 0;
+        int failed = 0;
+        for (Result result : results) {
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += result.histogram[i];
+            }
+            moves += result.moves;
+            games += result.games;
+            if (result.failure != null) {
+                failed++;
+                if (failed == 1) {
+                    System.err.println("Session failed: " + result.failure);
+                }
+            }
+        }
+
+        System.out.printf("%d sessions (%d failed), board %dx%d with %d mines, %.1f s%n",
+                sessions, failed, size, size, mines, elapsed);
+        System.out.printf("moves/second:  %.0f%n", moves / elapsed);
+        System.out.printf("games/second:  %.0f%n", games / elapsed);
+        System.out.printf("move latency:  p50 %d us, p99 %d us, p99.9 %d us, max %d us%n",
+                percentile(histogram, moves, 0.5), percentile(histogram, moves, 0.99),
+                percentile(histogram, moves, 0.999), percentile(histogram, moves, 1));
+    }
+
+    private void play(SocketChannel channel, SplittableRandom random, long deadline, Result result)
+            throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(32);
+        ByteBuffer in = ByteBuffer.allocate(64 * 1024).flip();
+        long[] revealed = new long[(size * size + 63) >>> 6]; // What this client has seen revealed
+
+        boolean playing = false;
+        while (System.nanoTime() < deadline) {
+            if (!playing) {
+                out.clear();
+                out.put(GameServer.NEW_GAME).putInt(size).putInt(mines).putLong(random.nextLong());
+                GameClient.send(channel, out);
+                GameClient.expectStatus(channel, in);
+                Arrays.fill(revealed, 0);
+                playing = true;
+                result.games++;
+            }
+
+            int cell;
+            do {
+                cell = random.nextInt(size * size);
+            } while (Board.get(revealed, cell));
+            boolean flag = result.moves % 8 == 7;
+
+            long start = System.nanoTime();
+            out.clear();
+            out.put(flag ? GameServer.FLAG : GameServer.REVEAL).putInt(cell / size).putInt(cell % size);
+            GameClient.send(channel, out);
+            byte status = GameClient.expectStatus(channel, in);
+            if (flag) {
+                GameClient.readFully(channel, in, 1);
+                in.get();
+            } else {
+                GameClient.readFully(channel, in, 4);
+                int count = in.getInt();
+                for (int i = 0; i < count; i++) {
+                    GameClient.readFully(channel, in, 4);
+                    Board.set(revealed, in.getInt());
+                }
+            }
+            result.histogram[bucket((System.nanoTime() - start) / 1000)]++;
+            result.moves++;
+            playing = status == GameServer.STATUS_PLAYING;
+        }
+    }
+
+    private static int bucket(long micros) {
+        if (micros < LINEAR_MICROS) {
+            return (int) micros;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), 39);
+        int sub = (int) (micros >>> (exponent - 6)) & (SUB_BUCKETS - 1);
+        return LINEAR_MICROS + (exponent - 10) * SUB_BUCKETS + sub;
+    }
+
+    // The smallest latency that lands in the bucket
+    private static long bucketMicros(int bucket) {
+        if (bucket < LINEAR_MICROS) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_MICROS) / SUB_BUCKETS + 10;
+        int sub = (bucket - LINEAR_MICROS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - 6);
+    }
+
+    private static long percentile(long[] histogram, long total, double fraction) {
+        long target = Math.max(1, (long) Math.ceil(total * fraction));
+        long seen = 0;
+        for (int bucket = 0; bucket < histogram.length; bucket++) {
+            seen += histogram[bucket];
+            if (seen >= target) {
+                return bucketMicros(bucket);
+            }
+        }
+        return 0; // No moves
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 10;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int mines = args.length > 3 ? Integer.parseInt(args[3]) : 40;
+        String host = args.length > 4 ? args[4] : "localhost";
+
+        GameServer server = null;
+        int port;
+        if (args.length > 5) {
+            port = Integer.parseInt(args[5]);
+        } else {
+            server = new GameServer(0);
+            server.start();
+            port = server.getPort();
+        }
+        try {
+            new GameLoadGenerator(new InetSocketAddress(host, port), size, mines).run(sessions, seconds);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package application;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hosts headless games over TCP, one game per connection, for running bot
+ * tournaments from one JVM. Each connection gets its own thread that owns its
+ * GameEngine, so sessions share nothing and need no locks.
+ *
+ * The protocol is binary and big-endian. Each request is an opcode byte and
+ * its arguments, and gets exactly one reply starting with a status byte (the
+ * game's state, or STATUS_ERROR followed by a short length and a UTF-8
+ * message). Requests can be pipelined.
+ *
+ *   NEW_GAME size:int mines:int seed:long  ->  status
+ *   REVEAL   x:int y:int                   ->  status count:int cell:int * count  (cells as x * size + y)
+ *   FLAG     x:int y:int                   ->  status changed:byte
+ *   BATCH    count:int (type:byte x:int y:int) * count
+ *                                          ->  status applied:int runs:int (cell:int kindLength:int) * runs
+ *
+ * BATCH plays up to MAX_BATCH_MOVES moves in one round trip, with the move
+ * types of MoveBatch, and replies with the MoveDiff encoding of what changed.
+ *
+ * Usage: GameServer [port]
+ */
+public class GameServer implements Closeable {
+    public static final int DEFAULT_PORT = 7777;
+
+    public static final byte NEW_GAME = 1;
+    public static final byte REVEAL = 2;
+    public static final byte FLAG = 3;
+    public static final byte BATCH = 4;
+
+    public static final byte STATUS_PLAYING = 0;
+    public static final byte STATUS_WON = 1;
+    public static final byte STATUS_LOST = 2;
+    public static final byte STATUS_ERROR = -1;
+
+    // Caps a reveal reply at 4 MB and a batch reply at 8 MB, so one session cannot take the server's memory
+    public static final int MAX_SIZE = 1024;
+    public static final int MAX_BATCH_MOVES = 1 << 16;
+
+    private static final long SESSION_STACK_BYTES = 256 * 1024; // Keeps thousands of session threads cheap
+    private static final int BUFFER_BYTES = 8 * 1024;
+
+    private final ServerSocketChannel server;
+    private final Thread acceptor;
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final LongAdder moves = new LongAdder(); // Added to by every session thread
+
+    /** Listens on the port, or on any free port if it is 0. Call start() to accept connections. */
+    public GameServer(int port) throws IOException {
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port), 1024);
+        acceptor = new Thread(this::accept, "game-server");
+    }
+
+    public void start() {
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /** Connections open right now. */
+    public int getSessions() {
+        return sessions.get();
+    }
+
+    /** Moves played since the server started, counting each move of a batch. */
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    /** Stops accepting connections. Sessions already open run until their clients disconnect. */
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    private void accept() {
+        int id = 0;
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Could not accept a connection: " + e);
+                continue;
+            }
+            Thread session = new Thread(null, () -> serve(channel), "session-" + id++, SESSION_STACK_BYTES);
+            session.setDaemon(true);
+            session.start();
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        sessions.incrementAndGet();
+        try (channel) {
+            channel.socket().setTcpNoDelay(true);
+            ByteBuffer in = ByteBuffer.allocate(BUFFER_BYTES).flip(); // Empty, ready to fill
+            ByteBuffer out = ByteBuffer.allocate(BUFFER_BYTES);
+            GameEngine engine = null;
+            MoveBatch batch = new MoveBatch();
+            MoveDiff diff = new MoveDiff();
+
+            while (fill(channel, in, 1)) {
+                byte request = in.get();
+                out.clear();
+                if (request == NEW_GAME) {
+                    if (!fill(channel, in, 16)) {
+                        return;
+                    }
+                    int size = in.getInt();
+                    int mines = in.getInt();
+                    long seed = in.getLong();
+                    if (size > MAX_SIZE) {
+                        error(out, "Grid size must be at most " + MAX_SIZE + ", got " + size);
+                    } else {
+                        try {
+                            engine = GameEngine.newGame(size, mines, seed, false);
+                            out.put(status(engine));
+                        } catch (IllegalArgumentException e) {
+                            error(out, e.getMessage());
+                        }
+                    }
+                } else if (request == REVEAL || request == FLAG) {
+                    if (!fill(channel, in, 8)) {
+                        return;
+                    }
+                    int x = in.getInt();
+                    int y = in.getInt();
+                    int size = engine == null ? 0 : engine.getBoard().getSize();
+                    if (engine == null) {
+                        error(out, "No game; send NEW_GAME first");
+                    } else if (x < 0 || x >= size || y < 0 || y >= size) {
+                        error(out, "Cell (" + x + ", " + y + ") is off the board");
+                    } else if (request == REVEAL) {
+                        int[] cells = engine.reveal(x, y);
+                        if (out.capacity() < 5 + 4 * cells.length) {
+                            out = ByteBuffer.allocate(5 + 4 * cells.length);
+                        }
+                        out.put(status(engine)).putInt(cells.length);
+                        out.asIntBuffer().put(cells);
+                        out.position(out.position() + 4 * cells.length);
+                        moves.increment();
+                    } else {
+                        boolean changed = engine.toggleFlag(x, y);
+                        out.put(status(engine)).put((byte) (changed ? 1 : 0));
+                        moves.increment();
+                    }
+                } else if (request == BATCH) {
+                    if (!fill(channel, in, 4)) {
+                        return;
+                    }
+                    int count = in.getInt();
+                    if (count < 0 || count > MAX_BATCH_MOVES) {
+                        // Too many moves to skip over, so hang up
+                        error(out, "A batch must have 0 to " + MAX_BATCH_MOVES + " moves, got " + count);
+                        write(channel, out);
+                        return;
+                    }
+                    batch.clear();
+                    String refused = engine == null ? "No game; send NEW_GAME first" : null;
+                    for (int i = 0; i < count; i++) {
+                        if (!fill(channel, in, 9)) {
+                            return;
+                        }
+                        int type = in.get();
+                        int x = in.getInt();
+                        int y = in.getInt();
+                        if (refused == null) {
+                            try {
+                                batch.add(type, x, y);
+                            } catch (IllegalArgumentException e) {
+                                refused = e.getMessage(); // Keep reading so the stream stays in step
+                            }
+                        }
+                    }
+                    if (refused == null) {
+                        try {
+                            engine.apply(batch, diff);
+                        } catch (IllegalArgumentException e) {
+                            refused = e.getMessage();
+                        }
+                    }
+                    if (refused != null) {
+                        error(out, refused);
+                    } else {
+                        int runs = diff.size();
+                        if (out.capacity() < 9 + 8 * runs) {
+                            out = ByteBuffer.allocate(9 + 8 * runs);
+                        }
+                        out.put(status(engine)).putInt(diff.getApplied()).putInt(runs);
+                        out.asIntBuffer().put(diff.encoded(), 0, 2 * runs);
+                        out.position(out.position() + 8 * runs);
+                        moves.add(diff.getApplied());
+                    }
+                } else {
+                    // The rest of the stream cannot be parsed, so say why and hang up
+                    error(out, "Unknown request " + request);
+                    write(channel, out);
+                    return;
+                }
+                write(channel, out);
+                if (out.capacity() > BUFFER_BYTES) {
+                    out = ByteBuffer.allocate(BUFFER_BYTES); // Idle sessions should not keep the biggest reply
+                }
+            }
+        } catch (IOException e) {
+            // The client went away mid-request; nothing to clean up but the channel
+        } finally {
+            sessions.decrementAndGet();
+        }
+    }
+
+    private static byte status(GameEngine engine) {
+        switch (engine.getState()) {
+            case WON:
+                return STATUS_WON;
+            case LOST:
+                return STATUS_LOST;
+            default:
+                return STATUS_PLAYING;
+        }
+    }
+
+    private static void error(ByteBuffer out, String message) {
+        byte[] text = message.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(text.length, out.capacity() - 3);
+        out.put(STATUS_ERROR).putShort((short) length).put(text, 0, length);
+    }
+
+    private static void write(SocketChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+    }
+
+    /** Tops the buffer up from the channel; false if it closed before `needed` bytes were there. */
+    static boolean fill(SocketChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < needed) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= needed;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameServer server = new GameServer(port);
+        server.start();
+        System.out.println("Serving games on port " + server.getPort());
+        long lastMoves = 0;
+        while (true) {
+            Thread.sleep(5000);
+            long moves = server.getMoves();
+            System.out.printf("%d sessions, %.0f moves/s%n", server.getSessions(), (moves - lastMoves) / 5.0);
+            lastMoves = moves;
+        }
+    }
+}
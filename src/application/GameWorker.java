@@ -0,0 +1,293 @@
+package application;
+
+import javafx.application.Platform;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs the game engine on its own thread so board generation, flood fills and
+ * hint calculations never block the JavaFX Application Thread. Moves are
+ * handled one at a time in the order they were submitted, so clicks made while
+ * a big move is still running wait their turn instead of being lost or
+ * reordered.
+ *
+ * Each move is aimed at the game on screen when it was submitted, and is
+ * dropped if the worker has moved on to another game by then. So clicks on
+ * the old board while the next game is being generated never land on the
+ * new one, which the player has not seen and may be a different size.
+ *
+ * Each move's result is published as a Diff. Diffs are handed to the FX
+ * thread in batches: however many moves finish before the FX thread gets
+ * round to it, there is only one pending Platform.runLater.
+ *
+ * Only the worker changes the board once a game has started. Views may still
+ * read it from the FX thread: the mine plane never changes, and every cell in
+ * a Diff was updated before the Diff was published. A full redraw can catch a
+ * move half done, but the move's Diff follows and redraws those cells.
+ *
+ * If given a journal path, every move is also logged to a MoveJournal. After a
+ * move the worker queues a commit behind whatever moves are already waiting,
+ * so a burst of clicks shares one write and one fsync. The journal is deleted
+ * when the game ends.
+ */
+public class GameWorker {
+    /**
+     * What one move changed. Built on the worker and never modified once published.
+     *
+     * @param engine        the game the move was made in
+     * @param revealed      newly revealed cells as x * size + y
+     * @param flagged       the cell whose flag changed, or -1
+     * @param probabilities the hint overlay after the move, or null if unchanged
+     * @param ended         the state this move ended the game in, or null if it did not end it
+     */
+    public record Diff(GameEngine engine, int[] revealed, int flagged, double[] probabilities, GameEngine.State ended) {
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "game-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Consumer<Diff> onDiff;
+    private final Path journalPath;
+    private final ConcurrentLinkedQueue<Diff> published = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private GameEngine shown; // The game handed to onReady last; only touched on the FX thread
+
+    // Only touched on the worker thread
+    private GameEngine engine;
+    private MineProbability hints;
+    private boolean hintsOn;
+    private MoveJournal journal;
+    private boolean commitQueued;
+
+    /**
+     * onDiff is called on the FX thread for every move, in order. Moves are
+     * journaled to journalPath, unless it is null.
+     */
+    public GameWorker(Consumer<Diff> onDiff, Path journalPath) {
+        this.onDiff = onDiff;
+        this.journalPath = journalPath;
+    }
+
+    /**
+     * Generates a new game on the worker. onReady gets the engine on the FX
+     * thread; moves submitted after that apply to the new game. If generation
+     * throws IllegalArgumentException, onInvalid gets it on the FX thread and
+     * the old game carries on.
+     */
+    public void newGame(Supplier<GameEngine> generator, Consumer<GameEngine> onReady,
+            Consumer<IllegalArgumentException> onInvalid) {
+        executor.execute(() -> {
+            GameEngine next;
+            try {
+                next = generator.get();
+            } catch (IllegalArgumentException e) {
+                Platform.runLater(() -> onInvalid.accept(e));
+                return;
+            }
+            engine = next;
+            hints = null;
+            openJournal(false);
+            Platform.runLater(() -> show(next, onReady));
+        });
+    }
+
+    /** Carries on with a game recovered from the journal, appending to the same journal. */
+    public void resumeGame(GameEngine recovered, Consumer<GameEngine> onReady) {
+        executor.execute(() -> {
+            engine = recovered;
+            hints = null;
+            openJournal(true);
+            Platform.runLater(() -> show(recovered, onReady));
+        });
+    }
+
+    // Runs on the FX thread; moves submitted from now on are aimed at this game
+    private void show(GameEngine next, Consumer<GameEngine> onReady) {
+        shown = next;
+        onReady.accept(next);
+    }
+
+    /** Reveals a cell of the game on screen. Call on the FX thread. */
+    public void reveal(int x, int y) {
+        GameEngine target = shown;
+        executor.execute(() -> {
+            if (target != null && engine == target) {
+                GameEngine.State before = engine.getState();
+                int[] cells = engine.reveal(x, y);
+                if (cells.length > 0 || engine.getState() != before) {
+                    log(false, x * engine.getBoard().getSize() + y);
+                    publish(cells, -1, before, cells.length > 0);
+                }
+            }
+        });
+    }
+
+    /** Flags or unflags a cell of the game on screen. Call on the FX thread. */
+    public void toggleFlag(int x, int y) {
+        GameEngine target = shown;
+        executor.execute(() -> {
+            if (target != null && engine == target) {
+                GameEngine.State before = engine.getState();
+                if (engine.toggleFlag(x, y)) {
+                    log(true, x * engine.getBoard().getSize() + y);
+                    // Flags are not used as evidence, so they do not change the odds
+                    publish(new int[0], x * engine.getBoard().getSize() + y, before, false);
+                }
+            }
+        });
+    }
+
+    /** Turns the hint overlay on or off; when on, every Diff that reveals cells carries new probabilities. */
+    public void setHints(boolean on) {
+        executor.execute(() -> {
+            hintsOn = on;
+            if (on && engine != null) {
+                publish(new int[0], -1, engine.getState(), true);
+            }
+        });
+    }
+
+    /** Saves the game, as it is after the moves already queued, to a BoardFile. */
+    public void save(Path path) {
+        executor.execute(() -> {
+            if (engine == null) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                BoardFile.save(engine.getBoard(), path, false);
+                System.out.printf("Saved board to %s in %.1f ms%n", path, (System.nanoTime() - start) / 1e6);
+            } catch (IOException e) {
+                System.err.println("Could not save the board: " + e);
+            }
+        });
+    }
+
+    /** Finishes the moves already queued, commits the journal and stops the worker. */
+    public void shutdown() {
+        executor.execute(this::closeJournal);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Journal failures only cost crash recovery, so they switch journaling off instead of ending the game
+    private void openJournal(boolean append) {
+        closeJournal();
+        if (journalPath == null) {
+            return;
+        }
+        if (!append && (engine.getRevealedSafe() > 0 || engine.getRemainingFlags() < engine.getBoard().getMines())) {
+            // A game loaded part played cannot be rebuilt from its seed; its save file is the checkpoint
+            deleteJournal();
+            return;
+        }
+        try {
+            journal = append ? MoveJournal.reopen(journalPath) : MoveJournal.create(journalPath, engine.getBoard());
+        } catch (IOException e) {
+            System.err.println("Move journal disabled: " + e);
+        }
+    }
+
+    private void log(boolean flag, int cell) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            if (flag) {
+                journal.logFlag(cell);
+            } else {
+                journal.logReveal(cell);
+            }
+        } catch (IOException e) {
+            System.err.println("Move journal disabled: " + e);
+            closeJournal();
+            return;
+        }
+        if (!commitQueued) {
+            commitQueued = true;
+            executor.execute(this::commit);
+        }
+    }
+
+    // Queued behind the moves waiting at the time, so they all share this commit
+    private void commit() {
+        commitQueued = false;
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.commit();
+        } catch (IOException e) {
+            System.err.println("Move journal disabled: " + e);
+            closeJournal();
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Could not close the move journal: " + e);
+        }
+        journal = null;
+    }
+
+    // A finished game has nothing to recover
+    private void deleteJournal() {
+        closeJournal();
+        try {
+            Files.deleteIfExists(journalPath);
+        } catch (IOException e) {
+            System.err.println("Could not delete the move journal: " + e);
+        }
+    }
+
+    private void publish(int[] revealed, int flagged, GameEngine.State before, boolean oddsChanged) {
+        double[] probabilities = null;
+        if (hintsOn && oddsChanged && engine.getState() == GameEngine.State.PLAYING) {
+            if (hints == null) {
+                hints = new MineProbability(engine.getBoard());
+            }
+            probabilities = hints.compute().clone(); // compute() reuses its array
+        }
+        GameEngine.State after = engine.getState();
+        GameEngine.State ended = before == GameEngine.State.PLAYING && after != before ? after : null;
+        if (ended != null && journalPath != null) {
+            deleteJournal();
+        }
+        published.add(new Diff(engine, revealed, flagged, probabilities, ended));
+
+        if (drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drain);
+        }
+    }
+
+    // Runs on the FX thread
+    private void drain() {
+        // Clear the flag first, so a Diff published from here on schedules another drain
+        drainScheduled.set(false);
+        Diff diff;
+        while ((diff = published.poll()) != null) {
+            onDiff.accept(diff);
+        }
+    }
+}
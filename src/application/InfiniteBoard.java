@@ -0,0 +1,309 @@
+package application;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A board with no edges, for the endless mode. The plane is split into
+ * CHUNK x CHUNK chunks that are generated the first time they are looked at:
+ * chunk (cx, cy) gets its mines from a random generator seeded with a hash of
+ * the seed and its coordinates, so it comes out the same every time.
+ *
+ * At most maxChunks chunks are kept in memory, least recently used first out.
+ * A chunk that was never flagged or revealed is simply dropped and generated
+ * again when needed; one with player state is written to the spill directory
+ * and read back when it returns. Memory use therefore depends on maxChunks,
+ * not on how far the player has gone.
+ *
+ * Cells are addressed by (x, y) with x the row, as on Board, and may be
+ * negative. The 3x3 cells around (0, 0) never hold mines, so the game starts
+ * with a click there.
+ */
+public class InfiniteBoard implements Closeable {
+    public static final int CHUNK = 64; // One long per chunk row
+    private static final int CHUNK_CELLS = CHUNK * CHUNK;
+    private static final int SPILL_BYTES = 2 * CHUNK * Long.BYTES; // Flag and revealed planes
+
+    // Mine density must stay high enough that openings are always finite
+    private static final int MIN_MINES = CHUNK_CELLS / 8;
+
+    /** One chunk's planes, one long per row with bit y for column y. */
+    private static final class Chunk {
+        final long[] mines = new long[CHUNK];
+        final long[] flags = new long[CHUNK];
+        final long[] revealed = new long[CHUNK];
+        boolean touched; // Flagged or revealed since it was generated or read back
+    }
+
+    private final long seed;
+    private final int minesPerChunk;
+    private final int maxChunks;
+    private final Path spillDirectory;
+    private final LinkedHashMap<Long, Chunk> chunks;
+
+    // The last chunk looked up, so runs of lookups in one chunk skip the map
+    private long lastKey;
+    private Chunk lastChunk;
+
+    private int[] queue = new int[64]; // Flood fill queue of (x, y) pairs, reused between reveals
+    private final ByteBuffer spillBuffer = ByteBuffer.allocate(SPILL_BYTES);
+    private boolean lost;
+    private long revealedCells;
+    private long chunksGenerated;
+    private long chunksSpilled;
+
+    /**
+     * @param minesPerChunk mines in each CHUNK x CHUNK chunk
+     * @param maxChunks     most chunks kept in memory at once
+     * @param spillDirectory directory for evicted chunks; it should start empty
+     */
+    public InfiniteBoard(long seed, int minesPerChunk, int maxChunks, Path spillDirectory) {
+        if (minesPerChunk < MIN_MINES || minesPerChunk > CHUNK_CELLS) {
+            throw new IllegalArgumentException("Mines per chunk must be between " + MIN_MINES + " and " + CHUNK_CELLS
+                    + ", got " + minesPerChunk);
+        }
+        // A reveal looks at up to four chunks around a cell, so keep room for them
+        if (maxChunks < 4) {
+            throw new IllegalArgumentException("Need room for at least 4 chunks, got " + maxChunks);
+        }
+        this.seed = seed;
+        this.minesPerChunk = minesPerChunk;
+        this.maxChunks = maxChunks;
+        this.spillDirectory = spillDirectory;
+        this.chunks = new LinkedHashMap<>(maxChunks * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+                if (size() <= InfiniteBoard.this.maxChunks) {
+                    return false;
+                }
+                evict(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    public boolean isMine(int x, int y) {
+        return bit(chunk(x, y).mines, x, y);
+    }
+
+    public boolean isFlagged(int x, int y) {
+        return bit(chunk(x, y).flags, x, y);
+    }
+
+    public boolean isRevealed(int x, int y) {
+        return bit(chunk(x, y).revealed, x, y);
+    }
+
+    public int countNeighboringMines(int x, int y) {
+        int count = 0;
+        for (int i = x - 1; i <= x + 1; i++) {
+            for (int j = y - 1; j <= y + 1; j++) {
+                if ((i != x || j != y) && isMine(i, j)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** True once a mine has been revealed. */
+    public boolean isLost() {
+        return lost;
+    }
+
+    public long getRevealedCells() {
+        return revealedCells;
+    }
+
+    public int getChunksInMemory() {
+        return chunks.size();
+    }
+
+    public long getChunksGenerated() {
+        return chunksGenerated;
+    }
+
+    public long getChunksSpilled() {
+        return chunksSpilled;
+    }
+
+    /**
+     * Reveals (x, y) and, if it has no neighboring mines, the opening around
+     * it, across chunk edges. Flagged cells stay hidden.
+     *
+     * @return the number of cells revealed
+     */
+    public int reveal(int x, int y) {
+        if (lost || isRevealed(x, y) || isFlagged(x, y)) {
+            return 0;
+        }
+        if (isMine(x, y)) {
+            lost = true;
+            markRevealed(x, y);
+            return 0;
+        }
+
+        // Breadth first; each cell is marked when queued, so it is queued once.
+        // Chunks can be evicted between lookups, so no Chunk is held across them.
+        int head = 0;
+        int tail = 0;
+        markRevealed(x, y);
+        queue[tail++] = x;
+        queue[tail++] = y;
+        while (head < tail) {
+            int cx = queue[head++];
+            int cy = queue[head++];
+            if (countNeighboringMines(cx, cy) > 0) {
+                continue;
+            }
+            for (int i = cx - 1; i <= cx + 1; i++) {
+                for (int j = cy - 1; j <= cy + 1; j++) {
+                    if (!isRevealed(i, j) && !isFlagged(i, j)) {
+                        markRevealed(i, j);
+                        if (tail + 2 > queue.length) {
+                            queue = Arrays.copyOf(queue, queue.length * 2);
+                        }
+                        queue[tail++] = i;
+                        queue[tail++] = j;
+                    }
+                }
+            }
+        }
+        int cells = tail / 2;
+        revealedCells += cells;
+        return cells;
+    }
+
+    /**
+     * Places or removes a flag on (x, y). There is no limit on flags.
+     *
+     * @return true if the flag changed
+     */
+    public boolean toggleFlag(int x, int y) {
+        Chunk chunk = chunk(x, y);
+        if (lost || bit(chunk.revealed, x, y)) {
+            return false;
+        }
+        chunk.flags[Math.floorMod(x, CHUNK)] ^= 1L << y; // Shifts only use the low 6 bits
+        chunk.touched = true;
+        return true;
+    }
+
+    /** Deletes the spilled chunks. The board cannot be used afterwards. */
+    @Override
+    public void close() throws IOException {
+        chunks.clear();
+        lastChunk = null;
+        try (DirectoryStream<Path> spilled = Files.newDirectoryStream(spillDirectory, "*.chunk")) {
+            for (Path file : spilled) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private void markRevealed(int x, int y) {
+        Chunk chunk = chunk(x, y);
+        chunk.revealed[Math.floorMod(x, CHUNK)] |= 1L << y;
+        chunk.touched = true;
+    }
+
+    private static boolean bit(long[] plane, int x, int y) {
+        return (plane[Math.floorMod(x, CHUNK)] & (1L << y)) != 0;
+    }
+
+    private Chunk chunk(int x, int y) {
+        int cx = Math.floorDiv(x, CHUNK);
+        int cy = Math.floorDiv(y, CHUNK);
+        long key = (long) cx << 32 | (cy & 0xFFFFFFFFL);
+        if (lastChunk != null && key == lastKey) {
+            return lastChunk;
+        }
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = load(cx, cy);
+            chunks.put(key, chunk); // May evict the least recently used chunk
+        }
+        lastKey = key;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    // Generates the chunk's mines, then reads back its player state if it was spilled
+    private Chunk load(int cx, int cy) {
+        Chunk chunk = new Chunk();
+        SplittableRandom random = new SplittableRandom(hash(seed, cx, cy));
+        // Floyd's sampling, as in Board
+        for (int j = CHUNK_CELLS - minesPerChunk; j < CHUNK_CELLS; j++) {
+            int cell = random.nextInt(j + 1);
+            if ((chunk.mines[cell / CHUNK] & (1L << cell)) != 0) {
+                cell = j;
+            }
+            chunk.mines[cell / CHUNK] |= 1L << cell;
+        }
+        if ((cx == 0 || cx == -1) && (cy == 0 || cy == -1)) {
+            // Keep the start area clear
+            for (int x = -1; x <= 1; x++) {
+                for (int y = -1; y <= 1; y++) {
+                    if (Math.floorDiv(x, CHUNK) == cx && Math.floorDiv(y, CHUNK) == cy) {
+                        chunk.mines[Math.floorMod(x, CHUNK)] &= ~(1L << y);
+                    }
+                }
+            }
+        }
+        chunksGenerated++;
+
+        Path file = spillFile(cx, cy);
+        if (Files.exists(file)) {
+            try {
+                spillBuffer.clear();
+                spillBuffer.put(Files.readAllBytes(file)).flip();
+                spillBuffer.asLongBuffer().get(chunk.flags).get(chunk.revealed);
+                Files.delete(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read back chunk " + cx + ", " + cy, e);
+            }
+            chunk.touched = true; // It has state again, so must be spilled again
+        }
+        return chunk;
+    }
+
+    private void evict(long key, Chunk chunk) {
+        if (chunk == lastChunk) {
+            lastChunk = null;
+        }
+        if (!chunk.touched) {
+            return; // Nothing that generating it again would not restore
+        }
+        int cx = (int) (key >> 32);
+        int cy = (int) key;
+        spillBuffer.clear();
+        spillBuffer.asLongBuffer().put(chunk.flags).put(chunk.revealed);
+        try {
+            Files.write(spillFile(cx, cy), spillBuffer.array());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill chunk " + cx + ", " + cy, e);
+        }
+        chunksSpilled++;
+    }
+
+    private Path spillFile(int cx, int cy) {
+        return spillDirectory.resolve(cx + "_" + cy + ".chunk");
+    }
+
+    // SplitMix64 finalizer over the seed and coordinates, so neighboring chunks get unrelated mines
+    private static long hash(long seed, int cx, int cy) {
+        long h = seed ^ ((long) cx << 32 | (cy & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,64 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Walks a player along an endless board and prints the heap as it goes, to
+ * check memory stays flat however far the player gets. The player clears a
+ * band of rows around row 0, flagging every mine and revealing everything
+ * else, then walks back to check that chunks read back from the spill
+ * directory still hold their state.
+ *
+ * Usage: InfiniteBoardBenchmark [columns] [max chunks]
+ */
+public class InfiniteBoardBenchmark {
+    private static final int BAND = 5; // Rows -2 to 2
+    private static final int REPORTS = 10;
+
+    public static void main(String[] args) throws IOException {
+        int columns = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int maxChunks = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        Path spill = Files.createTempDirectory("chunks");
+        try (InfiniteBoard board = new InfiniteBoard(42, 700, maxChunks, spill)) {
+            Runtime runtime = Runtime.getRuntime();
+            long moves = 0;
+            long start = System.nanoTime();
+            for (int y = 0; y < columns; y++) {
+                for (int x = -BAND / 2; x <= BAND / 2; x++) {
+                    if (board.isMine(x, y)) {
+                        if (!board.isFlagged(x, y)) {
+                            board.toggleFlag(x, y);
+                        }
+                    } else {
+                        board.reveal(x, y);
+                    }
+                    moves++;
+                }
+                if ((y + 1) % (columns / REPORTS) == 0) {
+                    System.gc();
+                    System.out.printf("column %9d: heap %5.1f MB, %d chunks in memory, %d spilled, %d cells revealed%n",
+                            y + 1, (runtime.totalMemory() - runtime.freeMemory()) / 1e6, board.getChunksInMemory(),
+                            board.getChunksSpilled(), board.getRevealedCells());
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.printf("%d moves in %.0f ms (%.2f us/move), %d chunks generated%n",
+                    moves, nanos / 1e6, nanos / 1e3 / moves, board.getChunksGenerated());
+
+            // Walk back: the band must still be cleared
+            for (int y = columns - 1; y >= 0; y -= InfiniteBoard.CHUNK / 2) {
+                for (int x = -BAND / 2; x <= BAND / 2; x++) {
+                    if (board.isMine(x, y) ? !board.isFlagged(x, y) : !board.isRevealed(x, y)) {
+                        throw new IllegalStateException("Lost the state of cell (" + x + ", " + y + ")");
+                    }
+                }
+            }
+            System.out.println("walked back: state intact, lost " + board.isLost());
+        } finally {
+            Files.deleteIfExists(spill);
+        }
+    }
+}
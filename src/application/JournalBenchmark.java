@@ -0,0 +1,89 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Measures what the move journal costs while playing and how fast a journal
+ * replays. A whole game is played in random order (flagging every mine and
+ * revealing every safe cell) and logged with one commit per group of moves,
+ * then with one commit per move for comparison, then replayed.
+ *
+ * Usage: JournalBenchmark [size] [mines] [moves per commit]
+ */
+public class JournalBenchmark {
+    private static final int SINGLE_COMMIT_MOVES = 2_000; // fsync per move is slow, so only time a few
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int mines = args.length > 1 ? Integer.parseInt(args[1]) : size * size / 5;
+        int group = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+
+        Path path = Files.createTempFile("journal", ".bin");
+        try {
+            GameEngine engine = GameEngine.newGame(size, mines, 42);
+            int[] moves = shuffledCells(size * size, new SplittableRandom(7));
+
+            long start = System.nanoTime();
+            int logged = 0;
+            try (MoveJournal journal = MoveJournal.create(path, engine.getBoard())) {
+                for (int cell : moves) {
+                    if (engine.getBoard().isMine(cell / size, cell % size)) {
+                        engine.toggleFlag(cell / size, cell % size);
+                        journal.logFlag(cell);
+                    } else if (!engine.getBoard().isRevealed(cell / size, cell % size)) {
+                        engine.reveal(cell / size, cell % size);
+                        journal.logReveal(cell);
+                    } else {
+                        continue;
+                    }
+                    if (++logged % group == 0) {
+                        journal.commit();
+                    }
+                }
+            }
+            long grouped = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            try (MoveJournal journal = MoveJournal.reopen(path)) {
+                for (int i = 0; i < SINGLE_COMMIT_MOVES; i++) {
+                    journal.logFlag(moves[i]);
+                    journal.commit();
+                }
+            }
+            long single = System.nanoTime() - start;
+
+            // Replay once to warm up, then time it
+            MoveJournal.replay(path);
+            start = System.nanoTime();
+            GameEngine replayed = MoveJournal.replay(path);
+            long replay = System.nanoTime() - start;
+            long replayedMoves = logged + SINGLE_COMMIT_MOVES;
+
+            System.out.printf("board %dx%d, %d mines, %d moves, journal %d KB%n",
+                    size, size, mines, logged, Files.size(path) / 1024);
+            System.out.printf("play and log, commit every %d: %.2f us/move%n", group, grouped / 1e3 / logged);
+            System.out.printf("log, commit every move:        %.2f us/move%n", single / 1e3 / SINGLE_COMMIT_MOVES);
+            System.out.printf("replay:                        %.1f M moves/s (%.0f ms), game %s%n",
+                    replayedMoves / (replay / 1e9) / 1e6, replay / 1e6, replayed.getState());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static int[] shuffledCells(int count, SplittableRandom random) {
+        int[] cells = new int[count];
+        for (int i = 0; i < count; i++) {
+            cells[i] = i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = cells[i];
+            cells[i] = cells[j];
+            cells[j] = swap;
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,332 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the exact chance that each hidden cell is a mine, given the
+ * numbers revealed so far and the total number of mines. Like Solver, flags
+ * are ignored.
+ *
+ * The frontier is split into independent components. Each component's
+ * solutions are counted per number of mines they use, then the components
+ * are combined with the cells away from the frontier, where any k of the
+ * remaining mines can go in (cells choose k) ways. Components are enumerated
+ * in parallel on a fork-join pool, and a component whose cells and numbers
+ * have not changed since the last call reuses its previous counts.
+ *
+ * Components too large to enumerate are treated like cells away from the
+ * frontier, so their cells get an estimate instead of an exact answer.
+ */
+public class MineProbability {
+    private static final int MAX_COMPONENT_VARIABLES = 64;
+    private static final int MAX_ENUMERATION_STEPS = 1_000_000;
+
+    private final Board board;
+    private final int size;
+    private final ForkJoinPool pool;
+    private final double[] probabilities;
+
+    // Components from the last call, by their smallest cell
+    private Map<Integer, Component> cache = new HashMap<>();
+
+    // ln(n!) for n up to the number of cells, so binomials never overflow
+    private final double[] logFactorial;
+
+    // Scratch space for finding components
+    private final long[] visited;
+    private int[] queue = new int[64];
+
+    public MineProbability(Board board) {
+        this(board, ForkJoinPool.commonPool());
+    }
+
+    public MineProbability(Board board, ForkJoinPool pool) {
+        this.board = board;
+        this.size = board.getSize();
+        this.pool = pool;
+        int cells = size * size;
+        probabilities = new double[cells];
+        visited = new long[(cells + 63) >>> 6];
+        logFactorial = new double[cells + 1];
+        for (int n = 2; n <= cells; n++) {
+            logFactorial[n] = logFactorial[n - 1] + Math.log(n);
+        }
+    }
+
+    /**
+     * Returns the mine probability of every cell as x * size + y. Revealed
+     * cells are 0. The array is reused by the next call.
+     */
+    public double[] compute() {
+        Arrays.fill(visited, 0);
+        Map<Integer, Component> components = new HashMap<>();
+        List<Component> stale = new ArrayList<>();
+        int unconstrained = 0;
+
+        for (int cell = 0; cell < size * size; cell++) {
+            if (Board.get(board.revealedBits, cell)) {
+                continue;
+            }
+            if (!touchesNumber(cell)) {
+                unconstrained++;
+            } else if (!Board.get(visited, cell)) {
+                // Cells are visited in increasing order, so this is the component's smallest cell
+                Component component = collectComponent(cell);
+                Component cached = cache.get(cell);
+                if (cached != null && cached.sameAs(component)) {
+                    component = cached;
+                } else {
+                    stale.add(component);
+                }
+                components.put(cell, component);
+            }
+        }
+
+        if (stale.size() == 1) {
+            stale.get(0).invoke();
+        } else if (!stale.isEmpty()) {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(stale)));
+        }
+        cache = components;
+
+        List<Component> exact = new ArrayList<>();
+        for (Component component : components.values()) {
+            if (component.enumeration != null) {
+                exact.add(component);
+            } else {
+                unconstrained += component.vars.length;
+            }
+        }
+        combine(exact, unconstrained);
+        return probabilities;
+    }
+
+    /*
+     * A way of placing t mines on the exact components is weighted by the
+     * ways of putting the other mines - t on the unconstrained cells. Each
+     * component also needs the other components' counts convolved together,
+     * which come from prefix and suffix products over the component list.
+     */
+    private void combine(List<Component> exact, int unconstrained) {
+        int count = exact.size();
+        double[][] prefix = new double[count + 1][];
+        double[][] suffix = new double[count + 1][];
+        prefix[0] = new double[] { 1 };
+        suffix[count] = new double[] { 1 };
+        for (int i = 0; i < count; i++) {
+            prefix[i + 1] = convolve(prefix[i], exact.get(i).enumeration.arrangements);
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            suffix[i] = convolve(exact.get(i).enumeration.arrangements, suffix[i + 1]);
+        }
+        double[] all = prefix[count];
+        double[] weights = binomialWeights(all.length, unconstrained);
+
+        // Every unconstrained cell has the same chance, so fill that in first
+        double mines = 0;
+        double sum = 0;
+        for (int t = 0; t < all.length; t++) {
+            sum += all[t] * weights[t];
+            mines += all[t] * weights[t] * (board.getMines() - t);
+        }
+        double unconstrainedProbability = unconstrained > 0 ? mines / sum / unconstrained : 0;
+        for (int cell = 0; cell < size * size; cell++) {
+            probabilities[cell] = Board.get(board.revealedBits, cell) ? 0 : unconstrainedProbability;
+        }
+
+        for (int i = 0; i < count; i++) {
+            ComponentEnumeration enumeration = exact.get(i).enumeration;
+            double[] arrangements = enumeration.arrangements;
+            double[] others = convolve(prefix[i], suffix[i + 1]);
+            // Weight of the rest of the board when this component holds `total` mines
+            double[] rest = new double[arrangements.length];
+            sum = 0;
+            for (int total = 0; total < arrangements.length; total++) {
+                for (int t = 0; t < others.length; t++) {
+                    rest[total] += others[t] * weights[total + t];
+                }
+                sum += arrangements[total] * rest[total];
+            }
+
+            int[] vars = exact.get(i).vars;
+            for (int var = 0; var < vars.length; var++) {
+                mines = 0;
+                for (int total = 0; total < arrangements.length; total++) {
+                    mines += enumeration.mineWeight(var, total) * rest[total];
+                }
+                probabilities[vars[var]] = mines / sum;
+            }
+        }
+    }
+
+    /*
+     * weights[t] is (unconstrained choose mines - t), divided by the largest of
+     * them. Only ratios matter, and the raw values overflow a double on big boards.
+     */
+    private double[] binomialWeights(int length, int unconstrained) {
+        double[] logWeights = new double[length];
+        double largest = Double.NEGATIVE_INFINITY;
+        for (int t = 0; t < length; t++) {
+            int k = board.getMines() - t;
+            if (k < 0 || k > unconstrained) {
+                logWeights[t] = Double.NEGATIVE_INFINITY;
+            } else {
+                logWeights[t] = logFactorial[unconstrained] - logFactorial[k] - logFactorial[unconstrained - k];
+                largest = Math.max(largest, logWeights[t]);
+            }
+        }
+        double[] weights = new double[length];
+        for (int t = 0; t < length; t++) {
+            weights[t] = Math.exp(logWeights[t] - largest);
+        }
+        return weights;
+    }
+
+    // Polynomial product, rescaled so the largest entry is 1; the scale cancels out in combine
+    private static double[] convolve(double[] a, double[] b) {
+        double[] product = new double[a.length + b.length - 1];
+        double largest = 0;
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b.length; j++) {
+                product[i + j] += a[i] * b[j];
+            }
+        }
+        for (double value : product) {
+            largest = Math.max(largest, value);
+        }
+        if (largest > 0) {
+            for (int i = 0; i < product.length; i++) {
+                product[i] /= largest;
+            }
+        }
+        return product;
+    }
+
+    private boolean touchesNumber(int cell) {
+        int x = cell / size;
+        int y = cell % size;
+        int mask = board.edgeMask(y);
+        int around = Board.window(board.revealedBits, cell - 1) & mask & ~2;
+        if (x > 0) {
+            around |= Board.window(board.revealedBits, cell - size - 1) & mask;
+        }
+        if (x < size - 1) {
+            around |= Board.window(board.revealedBits, cell + size - 1) & mask;
+        }
+        return around != 0;
+    }
+
+    // Breadth-first search from a hidden cell over cells linked by shared numbers
+    private Component collectComponent(int seed) {
+        Board.set(visited, seed);
+        queue[0] = seed;
+        int tail = 1;
+        for (int head = 0; head < tail; head++) {
+            int cell = queue[head];
+            boolean number = Board.get(board.revealedBits, cell);
+            int x = cell / size;
+            int y = cell % size;
+            for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, size - 1); i++) {
+                for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, size - 1); j++) {
+                    int neighbor = i * size + j;
+                    // Numbers lead to hidden cells and hidden cells lead to numbers
+                    if (!Board.get(visited, neighbor) && Board.get(board.revealedBits, neighbor) != number) {
+                        Board.set(visited, neighbor);
+                        if (tail == queue.length) {
+                            queue = Arrays.copyOf(queue, tail * 2);
+                        }
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+
+        int varCount = 0;
+        for (int i = 0; i < tail; i++) {
+            if (!Board.get(board.revealedBits, queue[i])) {
+                varCount++;
+            }
+        }
+        int[] vars = new int[varCount];
+        int[] numbers = new int[tail - varCount];
+        varCount = 0;
+        int numberCount = 0;
+        for (int i = 0; i < tail; i++) {
+            if (Board.get(board.revealedBits, queue[i])) {
+                numbers[numberCount++] = queue[i];
+            } else {
+                vars[varCount++] = queue[i];
+            }
+        }
+        Arrays.sort(vars);
+        Arrays.sort(numbers);
+
+        // Copy out what the enumeration needs, so it never touches the board from another thread
+        int[] mineCounts = new int[numbers.length];
+        int[][] links = new int[numbers.length][];
+        int[] around = new int[8];
+        for (int k = 0; k < numbers.length; k++) {
+            int x = numbers[k] / size;
+            int y = numbers[k] % size;
+            mineCounts[k] = board.countNeighboringMines(x, y);
+            int n = 0;
+            for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, size - 1); i++) {
+                for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, size - 1); j++) {
+                    int neighbor = i * size + j;
+                    if (!Board.get(board.revealedBits, neighbor)) {
+                        around[n++] = Arrays.binarySearch(vars, neighbor);
+                    }
+                }
+            }
+            links[k] = Arrays.copyOf(around, n);
+        }
+        return new Component(vars, numbers, mineCounts, links);
+    }
+
+    private static final class Component extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int[] vars; // Hidden cells, in increasing order
+        final int[] numbers; // Revealed cells touching them, in increasing order
+        final int[] mineCounts;
+        final int[][] links; // Indexes into vars around each number
+        ComponentEnumeration enumeration; // Left null if the component is too large
+
+        Component(int[] vars, int[] numbers, int[] mineCounts, int[][] links) {
+            this.vars = vars;
+            this.numbers = numbers;
+            this.mineCounts = mineCounts;
+            this.links = links;
+        }
+
+        // A number's count never changes, so the same cells mean the same solutions
+        boolean sameAs(Component other) {
+            return Arrays.equals(vars, other.vars) && Arrays.equals(numbers, other.numbers);
+        }
+
+        @Override
+        protected void compute() {
+            if (vars.length > MAX_COMPONENT_VARIABLES) {
+                return;
+            }
+            ComponentEnumeration search = new ComponentEnumeration(vars.length, numbers.length, MAX_ENUMERATION_STEPS, true);
+            for (int k = 0; k < numbers.length; k++) {
+                search.remaining[k] = mineCounts[k];
+                search.unassigned[k] = links[k].length;
+                for (int var : links[k]) {
+                    search.link(var, k);
+                }
+            }
+            if (search.run() && search.solutions > 0) {
+                enumeration = search;
+            }
+        }
+    }
+}
@@ -1,34 +1,62 @@
 package application;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
-import javafx.geometry.Pos;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
-import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.ChoiceDialog;
+import javafx.scene.control.Label;
 import javafx.scene.control.TextInputDialog;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import javafx.scene.layout.Background;
-import javafx.scene.layout.BackgroundImage;
-import javafx.scene.layout.BackgroundSize;
-import javafx.scene.layout.GridPane;
-import javafx.scene.paint.Color;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 import javafx.scene.text.Font;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 public class MinesweeperApp extends Application {
+    private static final String BUTTON_MODE = "Buttons";
+    private static final String CANVAS_MODE = "Canvas";
+    private static final String ZOOM_MODE = "Zoomable";
+    private static final int CANVAS_MODE_SIZE = 50; // Boards bigger than this default to the Canvas
+    private static final int ZOOM_MODE_SIZE = 200; // Bigger boards would have cells under 4 pixels on the Canvas
+    private static final String RANDOM_BOARD = "Random";
+    private static final String NO_GUESS_BOARD = "No guessing";
+    private static final String ENDLESS_BOARD = "Endless";
+    // Endless boards ignore the size and mine settings
+    private static final int ENDLESS_MINES_PER_CHUNK = 700; // About 17% of each 64x64 chunk
+    private static final int ENDLESS_CHUNKS = 64; // Chunks kept in memory; the window needs at most 4
+
+    private static final ButtonType PLAY_AGAIN = new ButtonType("Play Again");
+    private static final ButtonType CHANGE_SETTINGS = new ButtonType("Change Settings");
+    private static final ButtonType QUIT = new ButtonType("Quit");
+
+    // Moves of the game in progress, so it can be picked up again after a crash
+    private static final Path JOURNAL = Path.of(System.getProperty("user.home"), ".eggsweeper-journal");
+
     private int size = 10; // Default grid size
     private int mines = 10; // Default number of mines
+    private String displayMode = BUTTON_MODE;
+    private String boardType = RANDOM_BOARD;
 
-    private Button[][] buttons;
-    private boolean[][] minesArray;
-    private boolean[][] flagged;
-    private int remainingFlags;
-    Image flagImage;
+    private Stage stage;
+    private GameWorker worker;
+    private GameEngine engine; // The game on screen; the worker may already be generating the next one
+    private BoardView view;
+    private String viewMode; // Display mode the current view was created for
+    private boolean showHints;
+    private long dialogNanos; // Time spent in the first settings dialogs, left out of the startup time
+    private Path savePath = Path.of(System.getProperty("user.home"), "eggsweeper.board"); // Where S saves to
+    private InfiniteBoard endless; // The endless board on screen, or null
+    private Path endlessSpill; // Where it spills chunks
     Font font = Font.font("Verdana", FontWeight.EXTRA_BOLD, 25);
 
 
@@ -38,18 +66,131 @@ public class MinesweeperApp extends Application {
 
     @Override
     public void start(Stage primaryStage) {
-        flagImage = new Image("https://pngfre.com/wp-content/uploads/Chicken-25-1024x990.png");
-        showCustomizationDialog(); // Get user input for grid size and number of mines
-
-        generateMines();
-
-        GridPane grid = createGrid();
-        addButtonsToGrid(grid);
+        stage = primaryStage;
+        worker = new GameWorker(this::applyDiff, JOURNAL);
+        // A saved board can be given on the command line instead of generating one
+        List<String> args = getParameters().getRaw();
+        Path saved = args.isEmpty() ? null : Path.of(args.get(0));
+        long dialogStart = System.nanoTime();
+        GameEngine recovered = saved == null ? recoverGame() : null;
+        if (recovered == null && saved == null) {
+            chooseSettings();
+        }
+        dialogNanos = System.nanoTime() - dialogStart;
 
-        Scene scene = new Scene(grid);
+        // The board is generated on the worker, so the window can open straight away
+        Scene scene = new Scene(new Label("Generating board..."), 300, 100);
+        // Press H to tint hidden cells by their chance of being a mine, S to save the board
+        scene.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            if (e.getCode() == KeyCode.S && endless == null) {
+                worker.save(savePath);
+            } else if (e.getCode() == KeyCode.H) {
+                showHints = !showHints;
+                worker.setHints(showHints);
+                if (!showHints && view != null) {
+                    view.showProbabilities(null);
+                }
+            }
+        });
         primaryStage.setTitle("Minesweeper");
         primaryStage.setScene(scene);
         primaryStage.show();
+        if (saved != null) {
+            loadGame(saved);
+        } else if (recovered != null) {
+            long start = System.nanoTime();
+            worker.resumeGame(recovered, next -> showNewGame(next, false, start));
+        } else {
+            generateMines(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void stop() {
+        worker.shutdown();
+        closeEndless();
+    }
+
+    // Replays the journal and offers to carry on if it holds a game that was still being played
+    private GameEngine recoverGame() {
+        GameEngine recovered;
+        long start = System.nanoTime();
+        try {
+            recovered = MoveJournal.replay(JOURNAL);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not read the move journal: " + e);
+            return null;
+        }
+        if (recovered == null || recovered.getState() != GameEngine.State.PLAYING) {
+            return null;
+        }
+        System.out.printf("Replayed unfinished game in %.1f ms%n", (System.nanoTime() - start) / 1e6);
+
+        Board board = recovered.getBoard();
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION,
+                "Resume the unfinished " + board.getSize() + "x" + board.getSize() + " game?",
+                ButtonType.YES, ButtonType.NO);
+        alert.setTitle("Resume Game");
+        alert.setHeaderText(null);
+        if (alert.showAndWait().orElse(ButtonType.NO) != ButtonType.YES) {
+            return null; // The next game's journal replaces it
+        }
+        useSettingsOf(board);
+        return recovered;
+    }
+
+    // Loads a saved board on the worker and carries on from where it was saved
+    private void loadGame(Path path) {
+        long start = System.nanoTime();
+        worker.newGame(() -> {
+            GameEngine loaded;
+            try {
+                loaded = new GameEngine(BoardFile.load(path));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Could not load " + path + ": " + e.getMessage(), e);
+            }
+            if (loaded.getState() != GameEngine.State.PLAYING) {
+                throw new IllegalArgumentException(path + " holds a game that is already over");
+            }
+            return loaded;
+        }, next -> {
+            System.out.printf("Loaded %s in %.1f ms%n", path, (System.nanoTime() - start) / 1e6);
+            savePath = path;
+            useSettingsOf(next.getBoard());
+            showNewGame(next, false, start);
+        }, e -> {
+            showInvalidInputAlert(e.getMessage());
+            chooseSettings();
+            generateMines(System.nanoTime());
+        });
+    }
+
+    // Matches the settings to a board that was not made from them, so Play Again repeats it
+    private void useSettingsOf(Board board) {
+        size = board.getSize();
+        mines = board.getMines();
+        displayMode = defaultMode(size);
+    }
+
+    // Buttons look nicer, but only the Canvas keeps up with big boards, and only the zoomable view with huge ones
+    private static String defaultMode(int size) {
+        if (size > ZOOM_MODE_SIZE) {
+            return ZOOM_MODE;
+        }
+        return size > CANVAS_MODE_SIZE ? CANVAS_MODE : BUTTON_MODE;
+    }
+
+    // Get user input for grid size and number of mines, asking again if it is invalid
+    private void chooseSettings() {
+        while (true) {
+            try {
+                showCustomizationDialog();
+                Board.checkSettings(size, mines);
+                return;
+            } catch (IllegalArgumentException e) {
+                showInvalidInputAlert(e.getMessage());
+            }
+        }
     }
 
     private void showCustomizationDialog() {
@@ -68,179 +209,239 @@ public class MinesweeperApp extends Application {
 
         Optional<String> minesResult = minesDialog.showAndWait();
         minesResult.ifPresent(m -> mines = Integer.parseInt(m));
-    }
 
-    private void generateMines() {
-        buttons = new Button[size][size];
-        minesArray = new boolean[size][size];
-        flagged = new boolean[size][size];
-        remainingFlags = mines;
+        String defaultMode = defaultMode(size);
+        ChoiceDialog<String> modeDialog = new ChoiceDialog<>(defaultMode, BUTTON_MODE, CANVAS_MODE, ZOOM_MODE);
+        modeDialog.setTitle("Display Mode");
+        modeDialog.setHeaderText(null);
+        modeDialog.setContentText("Draw the board with:");
 
-        Random random = new Random();
+        Optional<String> modeResult = modeDialog.showAndWait();
+        displayMode = modeResult.orElse(defaultMode);
 
-        int count = 0;
-        while (count < mines) {
-            int x = random.nextInt(size);
-            int y = random.nextInt(size);
+        ChoiceDialog<String> boardDialog = new ChoiceDialog<>(RANDOM_BOARD, RANDOM_BOARD, NO_GUESS_BOARD, ENDLESS_BOARD);
+        boardDialog.setTitle("Board Type");
+        boardDialog.setHeaderText(null);
+        boardDialog.setContentText("Mine layout:");
 
-            if (!minesArray[x][y]) {
-                minesArray[x][y] = true;
-                count++;
-            }
-        }
+        Optional<String> boardResult = boardDialog.showAndWait();
+        boardType = boardResult.orElse(RANDOM_BOARD);
     }
 
-    private GridPane createGrid() {
-        GridPane grid = new GridPane();
-        grid.setAlignment(Pos.CENTER);
-        grid.setHgap(5);
-        grid.setVgap(5);
-
-        // Load the image
-        Image backgroundImage = new Image("http://benimatic.com/tfwiki/images/8/89/Forest_Grass.png");
-
-        // Set the background for each cell
-        BackgroundImage backgroundImg = new BackgroundImage(
-                backgroundImage,
-                null,
-                null,
-                null,
-                new BackgroundSize(100, 100, true, true, true, false)
-        );
-
-        Background background = new Background(backgroundImg);
-
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                buttons[i][j] = new Button();
+    // Generates the board on the worker; the settings are copied so later dialogs cannot change them halfway
+    private void generateMines(long start) {
+        closeEndless();
+        if (ENDLESS_BOARD.equals(boardType)) {
+            startEndless();
+            return;
+        }
+        int size = this.size;
+        int mines = this.mines;
+        boolean noGuess = NO_GUESS_BOARD.equals(boardType);
+        worker.newGame(() -> createEngine(size, mines, noGuess), next -> showNewGame(next, noGuess, start), e -> {
+            showInvalidInputAlert(e.getMessage());
+            chooseSettings();
+            generateMines(System.nanoTime());
+        });
+    }
 
-                // Set the background for each cell
-                buttons[i][j].setBackground(background);
+    // Runs on the worker
+    private static GameEngine createEngine(int size, int mines, boolean noGuess) {
+        if (!noGuess) {
+            return GameEngine.newGame(size, mines);
+        }
+        NoGuessGenerator generator = new NoGuessGenerator(size, mines, size / 2, size / 2);
+        GameEngine engine = new GameEngine(generator.generate(new SplittableRandom().nextLong()));
+        System.out.printf("No-guess board: %d candidates in %d ms (%.0f boards/s)%n", generator.getBoardsTried(),
+                generator.getElapsedNanos() / 1_000_000, generator.getBoardsPerSecond());
+        return engine;
+    }
 
-                buttons[i][j].setMinSize(40, 40);
-                final int x = i;
-                final int y = j;
-                buttons[i][j].setOnAction(e -> handleButtonClick(x, y));
-                buttons[i][j].setOnMouseClicked(e -> handleMouseClick(x, y, e));
+    // Endless boards make their chunks as the player moves around, so there is nothing to generate up front
+    private void startEndless() {
+        try {
+            endlessSpill = Files.createTempDirectory("eggsweeper-chunks");
+        } catch (IOException e) {
+            showInvalidInputAlert("Could not create a directory for the endless board: " + e.getMessage());
+            boardType = RANDOM_BOARD;
+            generateMines(System.nanoTime());
+            return;
+        }
+        endless = new InfiniteBoard(new SplittableRandom().nextLong(), ENDLESS_MINES_PER_CHUNK, ENDLESS_CHUNKS,
+                endlessSpill);
+        engine = null; // Drops any Diffs still coming from the last game
+        stage.getScene().setRoot(new EndlessBoardView(endless, this::showGameOverAlert).getNode());
+        stage.sizeToScene();
+    }
 
+    private void closeEndless() {
+        if (endless == null) {
+            return;
+        }
+        try {
+            endless.close();
+            Files.deleteIfExists(endlessSpill);
+        } catch (IOException e) {
+            System.err.println("Could not delete the endless board's chunks: " + e);
+        }
+        endless = null;
+    }
 
-                grid.add(buttons[i][j], j, i);
-            }
+    // The Button and Canvas views draw revealed cells in per-frame batches, so big cascades do not freeze the
+    // window; the zoomable view only marks tiles to redraw, so it needs no batching
+    private BoardView createView(String mode) {
+        viewMode = mode;
+        if (ZOOM_MODE.equals(mode)) {
+            return new TiledBoardView(engine.getBoard(), this::handleButtonClick, this::toggleFlag);
+        }
+        if (CANVAS_MODE.equals(mode)) {
+            return new BatchedBoardView(new CanvasBoardView(engine.getBoard(), this::handleButtonClick, this::toggleFlag));
         }
+        return new BatchedBoardView(new ButtonBoardView(engine.getBoard(), this::handleButtonClick, this::toggleFlag));
+    }
 
-        return grid;
+    // The chosen display mode, except that boards too big for the Canvas get the zoomable view
+    private String viewModeFor(int boardSize) {
+        if (CANVAS_MODE.equals(displayMode) && boardSize > CanvasBoardView.MAX_SIZE) {
+            return ZOOM_MODE;
+        }
+        return displayMode;
     }
 
-    private void addButtonsToGrid(GridPane grid) {
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                // Initially, hide mines and flags
-                buttons[i][j].setText("");
-            }
+    private void startNewGame(boolean changeSettings) {
+        if (changeSettings) {
+            chooseSettings();
         }
+        generateMines(System.nanoTime());
     }
 
-    private void handleButtonClick(int x, int y) {
-        if (minesArray[x][y]) {
-            showGameOverAlert();
+    /*
+     * Shows a freshly generated game in the same window. The view clears its
+     * existing cells instead of being rebuilt, and only lays out the grid
+     * again if the size changed, so this takes milliseconds instead of a JVM
+     * restart.
+     */
+    private void showNewGame(GameEngine next, boolean noGuess, long start) {
+        boolean firstGame = view == null;
+        engine = next;
+        long buildStart = System.nanoTime();
+        String mode = viewModeFor(engine.getBoard().getSize());
+        if (mode.equals(viewMode)) {
+            view.reset(engine.getBoard());
         } else {
-            revealCell(x, y);
+            view = createView(mode);
         }
-    }
+        stage.getScene().setRoot(view.getNode()); // Also replaces an endless board
+        if (noGuess) {
+            // Start the player off from the middle, where the generator checked the board can be solved
+            int boardSize = engine.getBoard().getSize();
+            worker.reveal(boardSize / 2, boardSize / 2);
+        }
+        if (showHints) {
+            worker.setHints(true);
+        }
+        stage.sizeToScene();
 
-    private void handleMouseClick(int x, int y, javafx.scene.input.MouseEvent event) {
-        if (event.getButton() == javafx.scene.input.MouseButton.SECONDARY) {
-            // Right-click to toggle flag
-            toggleFlag(x, y);
+        if (firstGame) {
+            reportBuild(System.nanoTime() - buildStart);
+            reportFirstFrame(dialogNanos);
+        } else {
+            reportNewGame(start);
         }
     }
 
-    private void toggleFlag(int x, int y) {
-        if (!buttons[x][y].isDisabled()) {
-            if (!flagged[x][y] && remainingFlags > 0) {
-                ImageView flagImageView = new ImageView(flagImage);
-                flagImageView.setFitHeight(size*3);
-                flagImageView.setFitWidth(size*3);
-                buttons[x][y].setGraphic(flagImageView); // Display flag
-                flagged[x][y] = true;
-                remainingFlags--;
-                if (Arrays.deepEquals(flagged, minesArray)){
-                    winner();
-                }
-            } else if (flagged[x][y]) {
-                buttons[x][y].setGraphic(null); // Remove flag
-                flagged[x][y] = false;
-                remainingFlags++;
+    // Prints the time from choosing a new game until the new board is on screen
+    private void reportNewGame(long start) {
+        long resetNanos = System.nanoTime() - start;
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                System.out.printf("New game: %dx%d board reset in %.1f ms, first frame after %.1f ms%n",
+                        size, size, resetNanos / 1e6, (System.nanoTime() - start) / 1e6);
             }
-        }
+        }.start();
     }
 
-    private void revealCell(int x, int y) {
-        buttons[x][y].setDisable(true);
-
-        int count = countNeighboringMines(x, y);
-        if (count > 0) {
-            buttons[x][y].setText(String.valueOf(count));
-            buttons[x][y].setFont(Font.font( "Arial",FontWeight.EXTRA_BOLD,20));
-            buttons[x][y].setBackground(null);
+    // Names the view that was built, which is not the chosen mode when the board was too big for the Canvas
+    private void reportBuild(long nanos) {
+        // Collect first so the number is the live heap, not garbage from startup
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long usedHeap = runtime.totalMemory() - runtime.freeMemory();
+        int boardSize = engine.getBoard().getSize();
+        System.out.printf("%s view: built %dx%d board in %d ms, heap in use %d MB%n",
+                viewMode, boardSize, boardSize, nanos / 1_000_000, usedHeap / (1024 * 1024));
+    }
 
-            switch (count) {
-                case 1 -> buttons[x][y].setTextFill(Color.DARKRED);
-                case 2 -> buttons[x][y].setTextFill(Color.ORANGE);
-                case 3 -> buttons[x][y].setTextFill(Color.GOLD);
-                case 4 -> buttons[x][y].setTextFill(Color.YELLOWGREEN);
-                case 5 -> buttons[x][y].setTextFill(Color.GREEN);
-                case 6 -> buttons[x][y].setTextFill(Color.LIGHTSEAGREEN);
-                case 7 -> buttons[x][y].setTextFill(Color.CYAN);
-                case 8 -> buttons[x][y].setTextFill(Color.DARKCYAN);
+    // Prints the time from JVM launch to the first rendered pulse, minus time spent in the dialogs
+    private void reportFirstFrame(long dialogNanos) {
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                stop();
+                long sinceLaunch = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+                System.out.printf("Startup: first frame %d ms after launch, not counting %d ms in dialogs%n",
+                        sinceLaunch - dialogNanos / 1_000_000, dialogNanos / 1_000_000);
             }
+        }.start();
+    }
 
-            buttons[x][y].setOpacity(100);
-
+    // Moves run on the worker in click order; their results come back through applyDiff
+    private void handleButtonClick(int x, int y) {
+        worker.reveal(x, y);
+    }
 
-        } else {
-            for (int i = -1; i <= 1; i++) {
-                for (int j = -1; j <= 1; j++) {
-                    int newX = x + i;
-                    int newY = y + j;
-                    if (newX >= 0 && newX < size && newY >= 0 && newY < size && !buttons[newX][newY].isDisabled()) {
-                        revealCell(newX, newY);
-                    }
-                }
-            }
-        }
+    private void toggleFlag(int x, int y) {
+        worker.toggleFlag(x, y);
     }
 
-    private int countNeighboringMines(int x, int y) {
-        int count = 0;
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                int newX = x + i;
-                int newY = y + j;
-                if (newX >= 0 && newX < size && newY >= 0 && newY < size && minesArray[newX][newY]) {
-                    count++;
-                }
-            }
+    private void applyDiff(GameWorker.Diff diff) {
+        if (diff.engine() != engine) {
+            return; // Left over from a game that has been replaced
+        }
+        // The engine does the flood fill; the view only redraws the cells it revealed
+        view.showCells(diff.revealed());
+        if (diff.flagged() >= 0) {
+            int boardSize = engine.getBoard().getSize();
+            view.showFlag(diff.flagged() / boardSize, diff.flagged() % boardSize);
+        }
+        if (diff.probabilities() != null && showHints) {
+            view.showProbabilities(diff.probabilities());
+        }
+        if (diff.ended() == GameEngine.State.LOST) {
+            showGameOverAlert();
+        } else if (diff.ended() == GameEngine.State.WON) {
+            winner();
         }
-        return count;
     }
 
-    private void showGameOverAlert() {
-        Alert alert = new Alert(Alert.AlertType.INFORMATION);
-        alert.setTitle("Game Over");
+    private void showInvalidInputAlert(String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Invalid Input");
         alert.setHeaderText(null);
-        alert.setContentText("You squashed an egg! Game over.");
+        alert.setContentText(message);
         alert.showAndWait();
-        System.exit(0);
+    }
+
+    private void showGameOverAlert() {
+        askToPlayAgain("Game Over", "You squashed an egg! Game over.");
     }
 
     private void winner(){
-        Alert alert = new Alert(Alert.AlertType.INFORMATION);
-        alert.setTitle("Winner!");
+        askToPlayAgain("Winner!", "You Won, Congrats!");
+    }
+
+    private void askToPlayAgain(String title, String message) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION, message, PLAY_AGAIN, CHANGE_SETTINGS, QUIT);
+        alert.setTitle(title);
         alert.setHeaderText(null);
-        alert.setContentText("You Won, Congrats!");
-        alert.showAndWait();
-        System.exit(0);
+        ButtonType choice = alert.showAndWait().orElse(QUIT);
+        if (choice == QUIT) {
+            Platform.exit();
+        } else {
+            startNewGame(choice == CHANGE_SETTINGS);
+        }
     }
 }
 
@@ -0,0 +1,75 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * A list of moves for GameEngine.apply, so a bot can play thousands of moves
+ * in one call instead of clicking cells one at a time. The moves live in
+ * primitive arrays that grow as needed and are kept by clear(), so refilling
+ * a batch allocates nothing.
+ */
+public class MoveBatch {
+    public static final int REVEAL = 0;
+    public static final int FLAG = 1; // Does nothing if the cell is already flagged
+    public static final int UNFLAG = 2; // Does nothing if the cell is not flagged
+    public static final int CHORD = 3; // Reveals the unflagged neighbors of a number with that many flags around it
+
+    private byte[] types = new byte[64];
+    private int[] xs = new int[64];
+    private int[] ys = new int[64];
+    private int count;
+
+    public MoveBatch reveal(int x, int y) {
+        return add(REVEAL, x, y);
+    }
+
+    public MoveBatch flag(int x, int y) {
+        return add(FLAG, x, y);
+    }
+
+    public MoveBatch unflag(int x, int y) {
+        return add(UNFLAG, x, y);
+    }
+
+    public MoveBatch chord(int x, int y) {
+        return add(CHORD, x, y);
+    }
+
+    /** Adds a move of one of the types above. The cell is checked against the board when the batch is applied. */
+    public MoveBatch add(int type, int x, int y) {
+        if (type < REVEAL || type > CHORD) {
+            throw new IllegalArgumentException("Unknown move type " + type);
+        }
+        if (count == xs.length) {
+            types = Arrays.copyOf(types, count * 2);
+            xs = Arrays.copyOf(xs, count * 2);
+            ys = Arrays.copyOf(ys, count * 2);
+        }
+        types[count] = (byte) type;
+        xs[count] = x;
+        ys[count] = y;
+        count++;
+        return this;
+    }
+
+    /** Empties the batch, keeping its arrays for the next one. */
+    public void clear() {
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int type(int i) {
+        return types[i];
+    }
+
+    public int x(int i) {
+        return xs[i];
+    }
+
+    public int y(int i) {
+        return ys[i];
+    }
+}
@@ -0,0 +1,236 @@
+package application;
+
+import com.sun.management.ThreadMXBean;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Measures GameEngine.apply against playing the same moves one call at a time.
+ * Each game is played by a bot that knows where the mines are: it visits the
+ * cells in random order, flagging mines and revealing safe cells, chords
+ * every fourth cell it reveals, and unflags and reflags every tenth mine, so
+ * no game is lost. Only apply (or the single calls) is timed, and the bytes
+ * it allocates are counted once the first game has grown the buffers.
+ *
+ * The same bot then plays over TCP against a GameServer in this JVM, with one
+ * request per move and then one BATCH request per batch. The server seeds its
+ * games the same way, so the bot can still see the mines.
+ *
+ * Usage: MoveBatchBenchmark [size] [mines] [moves per batch] [games]
+ */
+public class MoveBatchBenchmark {
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final int SINGLE_REQUEST_MOVES = 200_000; // A round trip per move is slow, so only time a few
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int mines = args.length > 1 ? Integer.parseInt(args[1]) : size * size / 6;
+        int batchMoves = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        System.out.printf("board %dx%d with %d mines, %d games%n", size, size, mines, games);
+        for (int round = 0; round < 2; round++) { // The first round warms up the JIT
+            boolean print = round == 1;
+            playBatched(size, mines, batchMoves, games, print);
+            playBatched(size, mines, 1, games, print);
+            playSingly(size, mines, games, print);
+        }
+        playOverTcp(size, mines, batchMoves, games);
+    }
+
+    private static void playBatched(int size, int mines, int batchMoves, int games, boolean print) {
+        MoveBatch batch = new MoveBatch();
+        MoveDiff diff = new MoveDiff();
+        long nanos = 0;
+        long bytes = 0;
+        long moves = 0;
+        long calls = 0;
+        long revealed = 0;
+        long runs = 0;
+
+        for (int game = 0; game < games; game++) {
+            GameEngine engine = GameEngine.newGame(size, mines, game);
+            long[] plan = plan(engine.getBoard(), new SplittableRandom(game));
+            int next = 0;
+            while (next < plan.length && engine.getState() == GameEngine.State.PLAYING) {
+                batch.clear();
+                for (; batch.size() < batchMoves && next < plan.length; next++) {
+                    int cell = (int) plan[next];
+                    batch.add((int) (plan[next] >>> 32), cell / size, cell % size);
+                }
+                long allocatedBefore = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+                long start = System.nanoTime();
+                engine.apply(batch, diff);
+                nanos += System.nanoTime() - start;
+                if (game > 0) {
+                    bytes += THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+                    calls++;
+                }
+                moves += diff.getApplied();
+                revealed += diff.getRevealedCount();
+                runs += diff.size();
+            }
+        }
+
+        if (print) {
+            System.out.printf("batches of %6d: %6.1f ns/move, %5.2f M moves/s, %6.1f bytes/call after warm-up,"
+                    + " %.2f revealed cells per run%n", batchMoves, (double) nanos / moves, moves * 1e3 / nanos,
+                    calls == 0 ? 0.0 : (double) bytes / calls, (double) revealed / runs);
+        }
+    }
+
+    // The same plan through reveal and toggleFlag; chords have no single-call method, so they are left out
+    private static void playSingly(int size, int mines, int games, boolean print) {
+        long nanos = 0;
+        long bytes = 0;
+        long moves = 0;
+
+        for (int game = 0; game < games; game++) {
+            GameEngine engine = GameEngine.newGame(size, mines, game);
+            long[] plan = plan(engine.getBoard(), new SplittableRandom(game));
+            long allocatedBefore = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+            long start = System.nanoTime();
+            for (int i = 0; i < plan.length && engine.getState() == GameEngine.State.PLAYING; i++) {
+                int type = (int) (plan[i] >>> 32);
+                int x = (int) plan[i] / size;
+                int y = (int) plan[i] % size;
+                if (type == MoveBatch.REVEAL) {
+                    engine.reveal(x, y);
+                } else if (type != MoveBatch.CHORD) {
+                    engine.toggleFlag(x, y);
+                } else {
+                    continue;
+                }
+                moves++;
+            }
+            nanos += System.nanoTime() - start;
+            bytes += THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+        }
+
+        if (print) {
+            System.out.printf("single calls:      %6.1f ns/move, %5.2f M moves/s, %6.1f bytes/move%n",
+                    (double) nanos / moves, moves * 1e3 / nanos, (double) bytes / moves);
+        }
+    }
+
+    private static void playOverTcp(int size, int mines, int batchMoves, int games) throws IOException {
+        try (GameServer server = new GameServer(0);
+                SocketChannel channel = connect(server)) {
+            ByteBuffer out = ByteBuffer.allocate(5 + 9 * Math.max(batchMoves, 2));
+            ByteBuffer in = ByteBuffer.allocate(64 * 1024).flip();
+
+            // One request per move, for the start of one game
+            newGame(channel, out, in, size, mines, 0);
+            long[] plan = plan(GameEngine.newGame(size, mines, 0).getBoard(), new SplittableRandom(0));
+            long moves = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < plan.length && moves < SINGLE_REQUEST_MOVES; i++) {
+                int type = (int) (plan[i] >>> 32);
+                int cell = (int) plan[i];
+                if (type == MoveBatch.CHORD) {
+                    continue;
+                }
+                out.clear();
+                out.put(type == MoveBatch.REVEAL ? GameServer.REVEAL : GameServer.FLAG)
+                        .putInt(cell / size).putInt(cell % size);
+                GameClient.send(channel, out);
+                GameClient.expectStatus(channel, in);
+                if (type == MoveBatch.REVEAL) {
+                    GameClient.readFully(channel, in, 4);
+                    GameClient.skip(channel, in, 4L * in.getInt());
+                } else {
+                    GameClient.readFully(channel, in, 1);
+                    in.get();
+                }
+                moves++;
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.printf("tcp, single moves:  %6.3f us/move, %8.0f moves/s%n", nanos / 1e3 / moves,
+                    moves * 1e9 / nanos);
+
+            // Whole games as batches
+            moves = 0;
+            nanos = 0;
+            for (int game = 0; game < games; game++) {
+                newGame(channel, out, in, size, mines, game);
+                plan = plan(GameEngine.newGame(size, mines, game).getBoard(), new SplittableRandom(game));
+                byte status = GameServer.STATUS_PLAYING;
+                for (int next = 0; next < plan.length && status == GameServer.STATUS_PLAYING;) {
+                    int count = Math.min(batchMoves, plan.length - next);
+                    start = System.nanoTime();
+                    out.clear();
+                    out.put(GameServer.BATCH).putInt(count);
+                    for (int i = 0; i < count; i++, next++) {
+                        int cell = (int) plan[next];
+                        out.put((byte) (plan[next] >>> 32)).putInt(cell / size).putInt(cell % size);
+                    }
+                    GameClient.send(channel, out);
+                    status = GameClient.expectStatus(channel, in);
+                    GameClient.readFully(channel, in, 8);
+                    moves += in.getInt();
+                    GameClient.skip(channel, in, 8L * in.getInt());
+                    nanos += System.nanoTime() - start;
+                }
+            }
+            System.out.printf("tcp, batches of %d: %6.3f us/move, %8.0f moves/s%n", batchMoves,
+                    nanos / 1e3 / moves, moves * 1e9 / nanos);
+        }
+    }
+
+    private static SocketChannel connect(GameServer server) throws IOException {
+        server.start();
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", server.getPort()));
+        channel.socket().setTcpNoDelay(true);
+        return channel;
+    }
+
+    private static void newGame(SocketChannel channel, ByteBuffer out, ByteBuffer in, int size, int mines, long seed)
+            throws IOException {
+        out.clear();
+        out.put(GameServer.NEW_GAME).putInt(size).putInt(mines).putLong(seed);
+        GameClient.send(channel, out);
+        GameClient.expectStatus(channel, in);
+    }
+
+    // The bot's moves as type << 32 | cell
+    private static long[] plan(Board board, SplittableRandom random) {
+        int size = board.getSize();
+        int cells = size * size;
+        int[] order = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            order[i] = i;
+        }
+        for (int i = cells - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        long[] plan = new long[cells * 2];
+        int count = 0;
+        int mines = 0;
+        int safe = 0;
+        for (int cell : order) {
+            if (board.isMine(cell / size, cell % size)) {
+                plan[count++] = (long) MoveBatch.FLAG << 32 | cell;
+                if (mines++ % 10 == 0) {
+                    plan[count++] = (long) MoveBatch.UNFLAG << 32 | cell;
+                    plan[count++] = (long) MoveBatch.FLAG << 32 | cell;
+                }
+            } else {
+                plan[count++] = (long) MoveBatch.REVEAL << 32 | cell;
+                if (safe++ % 4 == 0) {
+                    plan[count++] = (long) MoveBatch.CHORD << 32 | cell;
+                }
+            }
+        }
+        return Arrays.copyOf(plan, count);
+    }
+}
@@ -0,0 +1,215 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * What one GameEngine.apply call changed, as runs of consecutive cells
+ * (x * size + y) that all took the same new state. Revealed cells are sorted
+ * before they are encoded, so an opening becomes one run per row it spans
+ * rather than one entry per cell.
+ *
+ * Entries are two ints, as returned by encoded(): the run's first cell, then
+ * the kind in the top byte and the run's length in the low 24 bits. The
+ * revealed runs come first, then the cells whose flag changed (with their
+ * final state), then the mine that was hit, if any.
+ *
+ * A diff is meant to be reused: its buffers are kept between batches, so once
+ * they have grown, applying a batch allocates nothing.
+ */
+public class MoveDiff {
+    public static final int REVEALED = 1;
+    public static final int FLAGGED = 2;
+    public static final int UNFLAGGED = 3;
+    public static final int EXPLODED = 4;
+
+    static final int MAX_RUN = (1 << 24) - 1;
+
+    private static final int RADIX_BITS = 11;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int INSERTION_SORT_CELLS = 32;
+
+    private int[] entries = new int[64];
+    private int entryCount;
+
+    // Collected while the batch is applied and encoded by finish()
+    private int[] revealed = new int[256];
+    private int revealedCount;
+    private int[] flagged = new int[16];
+    private int flaggedCount;
+    private int exploded = -1;
+
+    private int[] scratch = new int[0]; // Second buffer for the radix sort
+    private final int[] buckets = new int[RADIX];
+
+    private GameEngine.State state = GameEngine.State.PLAYING;
+    private int applied;
+
+    /** How many runs there are. */
+    public int size() {
+        return entryCount;
+    }
+
+    public int cell(int i) {
+        return entries[2 * i];
+    }
+
+    public int kind(int i) {
+        return entries[2 * i + 1] >>> 24;
+    }
+
+    public int length(int i) {
+        return entries[2 * i + 1] & MAX_RUN;
+    }
+
+    /** The runs as pairs of ints, valid up to 2 * size(); overwritten by the next batch. */
+    public int[] encoded() {
+        return entries;
+    }
+
+    /** The game's state after the batch. */
+    public GameEngine.State getState() {
+        return state;
+    }
+
+    /** How many moves were played; the rest were skipped because the game ended. */
+    public int getApplied() {
+        return applied;
+    }
+
+    /** How many cells the batch revealed in total. */
+    public int getRevealedCount() {
+        return revealedCount;
+    }
+
+    void clear() {
+        entryCount = 0;
+        revealedCount = 0;
+        flaggedCount = 0;
+        exploded = -1;
+    }
+
+    void addRevealed(int[] cells, int count) {
+        if (revealedCount + count > revealed.length) {
+            revealed = Arrays.copyOf(revealed, Math.max(revealed.length * 2, revealedCount + count));
+        }
+        System.arraycopy(cells, 0, revealed, revealedCount, count);
+        revealedCount += count;
+    }
+
+    void addFlagChange(int cell) {
+        if (flaggedCount == flagged.length) {
+            flagged = Arrays.copyOf(flagged, flaggedCount * 2);
+        }
+        flagged[flaggedCount++] = cell;
+    }
+
+    void setExploded(int cell) {
+        exploded = cell;
+    }
+
+    /** Encodes what was collected; the flag state of each changed cell is read from the board. */
+    void finish(Board board, GameEngine.State state, int applied) {
+        this.state = state;
+        this.applied = applied;
+
+        sort(revealed, revealedCount);
+        for (int i = 0; i < revealedCount;) {
+            int first = revealed[i];
+            int length = 1;
+            while (i + length < revealedCount && revealed[i + length] == first + length && length < MAX_RUN) {
+                length++;
+            }
+            addEntry(first, REVEALED, length);
+            i += length;
+        }
+
+        // A cell flagged and unflagged in one batch is listed once, with the state it ended in
+        sort(flagged, flaggedCount);
+        for (int i = 0; i < flaggedCount;) {
+            int first = flagged[i];
+            int kind = flagKind(board, first);
+            int length = 1;
+            i++;
+            while (i < flaggedCount && length < MAX_RUN) {
+                int cell = flagged[i];
+                if (cell == first + length - 1) {
+                    i++; // The same cell again
+                } else if (cell == first + length && flagKind(board, cell) == kind) {
+                    length++;
+                    i++;
+                } else {
+                    break;
+                }
+            }
+            addEntry(first, kind, length);
+        }
+
+        if (exploded >= 0) {
+            addEntry(exploded, EXPLODED, 1);
+        }
+    }
+
+    private static int flagKind(Board board, int cell) {
+        return Board.get(board.flagBits, cell) ? FLAGGED : UNFLAGGED;
+    }
+
+    private void addEntry(int cell, int kind, int length) {
+        if (2 * entryCount + 2 > entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        entries[2 * entryCount] = cell;
+        entries[2 * entryCount + 1] = kind << 24 | length;
+        entryCount++;
+    }
+
+    /*
+     * Sorts the first count cells with a least-significant-digit radix sort,
+     * 11 bits a pass, so it takes linear time and reuses the scratch buffer
+     * rather than allocating like Arrays.sort can on partly sorted input.
+     * A handful of cells are insertion sorted instead.
+     */
+    private void sort(int[] cells, int count) {
+        if (count <= INSERTION_SORT_CELLS) {
+            for (int i = 1; i < count; i++) {
+                int cell = cells[i];
+                int j = i;
+                for (; j > 0 && cells[j - 1] > cell; j--) {
+                    cells[j] = cells[j - 1];
+                }
+                cells[j] = cell;
+            }
+            return;
+        }
+        int max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, cells[i]);
+        }
+        if (scratch.length < count) {
+            scratch = new int[Math.max(cells.length, count)];
+        }
+        int[] from = cells;
+        int[] to = scratch;
+        for (int shift = 0; shift < 32 && max >>> shift != 0; shift += RADIX_BITS) {
+            Arrays.fill(buckets, 0);
+            for (int i = 0; i < count; i++) {
+                buckets[from[i] >>> shift & (RADIX - 1)]++;
+            }
+            int offset = 0;
+            for (int b = 0; b < RADIX; b++) {
+                int n = buckets[b];
+                buckets[b] = offset;
+                offset += n;
+            }
+            for (int i = 0; i < count; i++) {
+                int cell = from[i];
+                to[buckets[cell >>> shift & (RADIX - 1)]++] = cell;
+            }
+            int[] spare = from;
+            from = to;
+            to = spare;
+        }
+        if (from != cells) {
+            System.arraycopy(from, 0, cells, 0, count);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package application;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only log of the moves in a game, so a game survives a crash. The
+ * file starts with a header holding everything needed to rebuild the board
+ * (size, mines, seed and safe start cell), followed by one 5-byte record per
+ * move: the move type and the cell.
+ *
+ * Records are collected in a buffer and only written and forced to disk by
+ * commit(). The caller commits once per group of moves instead of once per
+ * move, so logging a move is a buffer write.
+ *
+ * replay() rebuilds a game by playing the moves on a headless GameEngine. A
+ * record cut short by a crash is ignored.
+ */
+public class MoveJournal implements Closeable {
+    private static final int MAGIC = 0x45474A31; // "EGJ1"
+    private static final int HEADER_BYTES = 24;
+    private static final int RECORD_BYTES = 5;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private static final byte REVEAL = 1;
+    private static final byte FLAG = 2;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    private MoveJournal(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /** Starts a new journal for the board, replacing any file at the path. */
+    public static MoveJournal create(Path path, Board board) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        MoveJournal journal = new MoveJournal(channel);
+        journal.buffer.putInt(MAGIC)
+                .putInt(board.getSize())
+                .putInt(board.getMines())
+                .putLong(board.getSeed())
+                .putInt(board.getSafeStart());
+        journal.commit();
+        return journal;
+    }
+
+    /** Opens an existing journal to add more moves, dropping a record cut short by a crash. */
+    public static MoveJournal reopen(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        long whole = HEADER_BYTES + (channel.size() - HEADER_BYTES) / RECORD_BYTES * RECORD_BYTES;
+        channel.truncate(whole);
+        channel.position(whole);
+        return new MoveJournal(channel);
+    }
+
+    public void logReveal(int cell) throws IOException {
+        log(REVEAL, cell);
+    }
+
+    public void logFlag(int cell) throws IOException {
+        log(FLAG, cell);
+    }
+
+    private void log(byte type, int cell) throws IOException {
+        if (buffer.remaining() < RECORD_BYTES) {
+            commit();
+        }
+        buffer.put(type).putInt(cell);
+    }
+
+    /** Writes the buffered moves and forces them to disk. */
+    public void commit() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Rebuilds the game recorded at the path by replaying its moves headlessly.
+     *
+     * @return the game, or null if there is no journal or it is not one
+     */
+    public static GameEngine replay(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).flip(); // Empty, ready to fill
+            if (!fill(channel, buffer, HEADER_BYTES) || buffer.getInt() != MAGIC) {
+                return null;
+            }
+            int size = buffer.getInt();
+            int mines = buffer.getInt();
+            long seed = buffer.getLong();
+            int safeStart = buffer.getInt();
+
+            Board board = new Board(size, mines);
+            if (safeStart >= 0) {
+                board.generateMines(seed, safeStart / size, safeStart % size);
+            } else {
+                board.generateMines(seed);
+            }
+            GameEngine engine = new GameEngine(board);
+
+            while (fill(channel, buffer, RECORD_BYTES)) {
+                while (buffer.remaining() >= RECORD_BYTES) {
+                    byte type = buffer.get();
+                    int cell = buffer.getInt();
+                    if (type == REVEAL) {
+                        engine.reveal(cell / size, cell % size);
+                    } else if (type == FLAG) {
+                        engine.toggleFlag(cell / size, cell % size);
+                    }
+                }
+            }
+            return engine;
+        }
+    }
+
+    // Tops the buffer up from the file; false if fewer than `needed` bytes are left
+    private static boolean fill(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        buffer.compact();
+        while (buffer.position() < needed) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= needed;
+    }
+}
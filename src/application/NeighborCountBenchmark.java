@@ -0,0 +1,114 @@
+package application;
+
+/**
+ * Micro-benchmark comparing ways of counting neighboring mines: rescanning
+ * the 8 neighbors on every lookup, the way revealCell used to; Board's
+ * bit-window lookups; and the whole number field at once with NeighborCounts,
+ * on one thread and on the fork-join pool.
+ *
+ * Usage: NeighborCountBenchmark [size...]
+ */
+public class NeighborCountBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private static long sink; // Keeps the JIT from discarding the loops
+
+    public static void main(String[] args) {
+        int[] sizes = { 1000, 4000, 8000 }; // 1M, 16M and 64M cells
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        for (int size : sizes) {
+            run(size, size * size / 6);
+        }
+    }
+
+    private static void run(int size, int mines) {
+        Board board = new Board(size, mines);
+        board.generateMines(42);
+        long cells = (long) size * size;
+        byte[] counts = new byte[size * size];
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            scanAll(board);
+            lookupAll(board);
+            NeighborCounts.computeSequential(board, 0, size, counts);
+            NeighborCounts.compute(board, 0, size, counts);
+        }
+
+        long scan = 0;
+        long lookup = 0;
+        long bulk = 0;
+        long parallel = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            scanAll(board);
+            scan += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            lookupAll(board);
+            lookup += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            NeighborCounts.computeSequential(board, 0, size, counts);
+            bulk += System.nanoTime() - start;
+            sink += counts[i];
+
+            start = System.nanoTime();
+            NeighborCounts.compute(board, 0, size, counts);
+            parallel += System.nanoTime() - start;
+            sink += counts[i];
+        }
+
+        System.out.printf("board %dx%d, %d mines, %d threads%n", size, size, mines,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("per-click scan:    %.2f ns/cell%n", (double) scan / MEASURED_ROUNDS / cells);
+        System.out.printf("bit windows:       %.2f ns/cell%n", (double) lookup / MEASURED_ROUNDS / cells);
+        System.out.printf("bulk, one thread:  %.2f ns/cell%n", (double) bulk / MEASURED_ROUNDS / cells);
+        System.out.printf("bulk, fork-join:   %.2f ns/cell%n", (double) parallel / MEASURED_ROUNDS / cells);
+        System.out.println("checksum " + sink);
+    }
+
+    private static void scanAll(Board board) {
+        int size = board.getSize();
+        long sum = 0;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                sum += scanNeighboringMines(board, x, y);
+            }
+        }
+        sink += sum;
+    }
+
+    private static void lookupAll(Board board) {
+        int size = board.getSize();
+        long sum = 0;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                sum += board.countNeighboringMines(x, y);
+            }
+        }
+        sink += sum;
+    }
+
+    // The original countNeighboringMines from MinesweeperApp
+    static int scanNeighboringMines(Board board, int x, int y) {
+        int size = board.getSize();
+        int count = 0;
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                int newX = x + i;
+                int newY = y + j;
+                if ((i != 0 || j != 0) && newX >= 0 && newX < size && newY >= 0 && newY < size
+                        && board.isMine(newX, newY)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
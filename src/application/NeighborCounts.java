@@ -0,0 +1,181 @@
+package application;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Works out every cell's neighboring mine count at once, for when the whole
+ * number field is needed (saving it, labelling openings) rather than one
+ * cell at a time.
+ *
+ * Each row of the mine plane is copied out word-aligned, and the rows above
+ * and below are shifted one column left and right so that the eight
+ * neighbors of 64 cells line up in eight words. Adding those words with
+ * bit-sliced full adders gives each cell's count as four bit planes, so one
+ * pass of about 30 word operations counts 64 cells. Bands of rows are
+ * counted in parallel on a fork-join pool.
+ */
+public final class NeighborCounts {
+    private static final int BAND_CELLS = 1 << 18; // Bands this small are counted on one thread
+
+    // Writes 8 counts to a byte[] as one long
+    private static final VarHandle EIGHT_BYTES = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+    // SPREAD[bits] has bit i of `bits` as the low bit of byte i
+    private static final long[] SPREAD = new long[256];
+
+    static {
+        for (int bits = 0; bits < 256; bits++) {
+            for (int i = 0; i < 8; i++) {
+                SPREAD[bits] |= (long) (bits >>> i & 1) << (i * 8);
+            }
+        }
+    }
+
+    private NeighborCounts() {
+    }
+
+    /** Counts for every cell of the board, indexed x * size + y. */
+    public static byte[] compute(Board board) {
+        int size = board.getSize();
+        byte[] counts = new byte[size * size];
+        compute(board, 0, size, counts);
+        return counts;
+    }
+
+    /**
+     * Counts for rows fromRow to toRow - 1 into out, with cell (x, y) at
+     * (x - fromRow) * size + y, using the common fork-join pool.
+     */
+    public static void compute(Board board, int fromRow, int toRow, byte[] out) {
+        ForkJoinPool.commonPool().invoke(new Band(board, fromRow, toRow, out, fromRow));
+    }
+
+    /** The same as compute(board, fromRow, toRow, out) on the calling thread only. */
+    public static void computeSequential(Board board, int fromRow, int toRow, byte[] out) {
+        countRows(board, fromRow, toRow, out, fromRow);
+    }
+
+    private static final class Band extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int fromRow;
+        private final int toRow;
+        private final byte[] out;
+        private final int outRow; // Row stored at out[0]
+
+        Band(Board board, int fromRow, int toRow, byte[] out, int outRow) {
+            this.board = board;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.out = out;
+            this.outRow = outRow;
+        }
+
+        @Override
+        protected void compute() {
+            if ((long) (toRow - fromRow) * board.getSize() <= BAND_CELLS || toRow - fromRow < 2) {
+                countRows(board, fromRow, toRow, out, outRow);
+                return;
+            }
+            int middle = (fromRow + toRow) >>> 1;
+            invokeAll(new Band(board, fromRow, middle, out, outRow), new Band(board, middle, toRow, out, outRow));
+        }
+    }
+
+    private static void countRows(Board board, int fromRow, int toRow, byte[] out, int outRow) {
+        int size = board.getSize();
+        int words = (size + 63) >>> 6;
+        long[] above = new long[words];
+        long[] row = new long[words];
+        long[] below = new long[words];
+        if (fromRow > 0) {
+            copyRow(board, fromRow - 1, above);
+        }
+        copyRow(board, fromRow, row);
+
+        for (int x = fromRow; x < toRow; x++) {
+            if (x + 1 < size) {
+                copyRow(board, x + 1, below);
+            } else {
+                Arrays.fill(below, 0);
+            }
+            int base = (x - outRow) * size;
+            for (int w = 0; w < words; w++) {
+                // Bit y of a "west" word is the cell at y - 1, and of an "east" word the cell at y + 1
+                long a = above[w];
+                long b = row[w];
+                long c = below[w];
+                long aWest = a << 1 | (w > 0 ? above[w - 1] >>> 63 : 0);
+                long aEast = a >>> 1 | (w + 1 < words ? above[w + 1] << 63 : 0);
+                long bWest = b << 1 | (w > 0 ? row[w - 1] >>> 63 : 0);
+                long bEast = b >>> 1 | (w + 1 < words ? row[w + 1] << 63 : 0);
+                long cWest = c << 1 | (w > 0 ? below[w - 1] >>> 63 : 0);
+                long cEast = c >>> 1 | (w + 1 < words ? below[w + 1] << 63 : 0);
+
+                // Add the eight neighbor words with full adders, keeping each weight in its own word
+                long s1 = aWest ^ a ^ aEast;
+                long c1 = (aWest & a) | (aEast & (aWest ^ a));
+                long s2 = bWest ^ bEast ^ cWest;
+                long c2 = (bWest & bEast) | (cWest & (bWest ^ bEast));
+                long s3 = s1 ^ s2 ^ c;
+                long c3 = (s1 & s2) | (c & (s1 ^ s2));
+                long bit0 = s3 ^ cEast;
+                long c4 = s3 & cEast;
+                long t = c1 ^ c2 ^ c3; // The weight-2 carries
+                long d1 = (c1 & c2) | (c3 & (c1 ^ c2));
+                long bit1 = t ^ c4;
+                long d2 = t & c4;
+                long bit2 = d1 ^ d2;
+                long bit3 = d1 & d2;
+
+                // Turn the four planes into one count byte per cell, 8 cells at a time
+                int first = w << 6;
+                int last = Math.min(first + 64, size);
+                int y = first;
+                for (int shift = 0; y + 8 <= last; y += 8, shift += 8) {
+                    long eight = SPREAD[(int) (bit0 >>> shift) & 0xFF]
+                            | SPREAD[(int) (bit1 >>> shift) & 0xFF] << 1
+                            | SPREAD[(int) (bit2 >>> shift) & 0xFF] << 2
+                            | SPREAD[(int) (bit3 >>> shift) & 0xFF] << 3;
+                    EIGHT_BYTES.set(out, base + y, eight);
+                }
+                for (; y < last; y++) {
+                    int shift = y - first;
+                    out[base + y] = (byte) ((bit0 >>> shift & 1) | (bit1 >>> shift & 1) << 1
+                            | (bit2 >>> shift & 1) << 2 | (bit3 >>> shift & 1) << 3);
+                }
+            }
+            long[] spare = above;
+            above = row;
+            row = below;
+            below = spare;
+        }
+    }
+
+    // Row x of the mine plane, starting at bit 0 of out[0], with nothing past the last column
+    private static void copyRow(Board board, int x, long[] out) {
+        int size = board.getSize();
+        long[] plane = board.mineBits;
+        long from = (long) x * size;
+        for (int w = 0; w < out.length; w++) {
+            long bit = from + ((long) w << 6);
+            int word = (int) (bit >>> 6);
+            int shift = (int) (bit & 63);
+            long value = plane[word] >>> shift;
+            if (shift != 0 && word + 1 < plane.length) {
+                value |= plane[word + 1] << (64 - shift);
+            }
+            out[w] = value;
+        }
+        int spare = (out.length << 6) - size;
+        if (spare > 0) {
+            out[out.length - 1] &= -1L >>> spare;
+        }
+    }
+}
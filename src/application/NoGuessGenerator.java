@@ -0,0 +1,134 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generates boards that can be cleared from a fixed start cell without ever
+ * guessing. Candidate layouts are checked by playing them with Solver, which
+ * only reveals cells it has proven safe; the first candidate it clears wins.
+ *
+ * Every core tries its own stream of candidates. As soon as one succeeds the
+ * others are interrupted and stop at their next candidate.
+ */
+public class NoGuessGenerator {
+    private static final int MAX_CANDIDATES = 100_000; // Give up if boards this dense are never solvable
+
+    private final int size;
+    private final int mines;
+    private final int startX;
+    private final int startY;
+    private final int threads;
+
+    // Statistics for the last call to generate
+    private final LongAdder candidates = new LongAdder();
+    private long elapsedNanos;
+
+    public NoGuessGenerator(int size, int mines, int startX, int startY) {
+        this(size, mines, startX, startY, Runtime.getRuntime().availableProcessors());
+    }
+
+    public NoGuessGenerator(int size, int mines, int startX, int startY, int threads) {
+        // Fail now rather than on every worker thread
+        new Board(size, mines).generateMines(0, startX, startY);
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread, got " + threads);
+        }
+        this.size = size;
+        this.mines = mines;
+        this.startX = startX;
+        this.startY = startY;
+        this.threads = threads;
+    }
+
+    /**
+     * Searches for a no-guess board. Which candidate wins depends on thread
+     * timing, but the returned board remembers its seed, and
+     * generateMines(board.getSeed(), startX, startY) rebuilds it exactly.
+     *
+     * @return a fresh board with nothing revealed
+     * @throws IllegalArgumentException if no candidate was solvable
+     */
+    public Board generate(long seed) {
+        candidates.reset();
+        long start = System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Callable<Long>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom workerRandom = random.split(); // SplittableRandom is not thread-safe
+            workers.add(() -> search(workerRandom));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Board board = new Board(size, mines);
+            board.generateMines(executor.invokeAny(workers), startX, startY);
+            return board;
+        } catch (ExecutionException e) {
+            throw new IllegalArgumentException("No board with " + mines + " mines could be solved without guessing in "
+                    + MAX_CANDIDATES + " tries", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating a board", e);
+        } finally {
+            executor.shutdownNow();
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    // Tries candidates until one is solvable, returning its seed
+    private long search(SplittableRandom random) {
+        while (!Thread.currentThread().isInterrupted()) {
+            candidates.increment();
+            if (candidates.sum() > MAX_CANDIDATES) {
+                break;
+            }
+            long candidate = random.nextLong();
+            Board board = new Board(size, mines);
+            board.generateMines(candidate, startX, startY);
+            if (isSolvable(board, startX, startY)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("Stopped without finding a board");
+    }
+
+    /** Plays the board from (startX, startY) revealing only proven-safe cells, and reports whether that wins. */
+    public static boolean isSolvable(Board board, int startX, int startY) {
+        int size = board.getSize();
+        GameEngine engine = new GameEngine(board, false);
+        Solver solver = new Solver(board);
+        solver.onReveal(engine.reveal(startX, startY));
+        while (engine.getState() == GameEngine.State.PLAYING) {
+            solver.analyse();
+            int cell = solver.nextSafeCell();
+            if (cell < 0) {
+                return false;
+            }
+            // Reveal everything already proven before analysing again
+            for (; cell >= 0; cell = solver.nextSafeCell()) {
+                solver.onReveal(engine.reveal(cell / size, cell % size));
+            }
+        }
+        return engine.getState() == GameEngine.State.WON;
+    }
+
+    /** Candidate boards tried by the last call to generate, across all threads. */
+    public long getBoardsTried() {
+        return candidates.sum();
+    }
+
+    public double getBoardsPerSecond() {
+        return elapsedNanos == 0 ? 0 : candidates.sum() * 1e9 / elapsedNanos;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,85 @@
+package application;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Pans TiledBoardView across a part-played 5000x5000 board at several zoom
+ * levels, one step per pulse, and prints the gaps between pulses for each:
+ * at 60 Hz every gap should be about 16.7 ms. Each pan moves far enough that
+ * new tiles keep having to be rendered.
+ */
+public class PanFrameBenchmark extends Application {
+    private static final int SIZE = 5000;
+    private static final int MINES = SIZE * SIZE / 6;
+    private static final double[] ZOOMS = { 1.0 / 8, 0.5, 2, 8, 16 };
+    private static final int FRAMES = 240;
+    private static final double STEP_PIXELS = 24;
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+
+    @Override
+    public void start(Stage stage) {
+        GameEngine engine = GameEngine.newGame(SIZE, MINES, 42);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 100_000; i++) {
+            int x = random.nextInt(SIZE);
+            int y = random.nextInt(SIZE);
+            if (engine.getBoard().isMine(x, y)) {
+                engine.toggleFlag(x, y);
+            } else {
+                engine.reveal(x, y);
+            }
+        }
+        TiledBoardView view = new TiledBoardView(engine.getBoard(), (x, y) -> { }, (x, y) -> { });
+        stage.setScene(new Scene(view.getNode()));
+        stage.show();
+
+        new AnimationTimer() {
+            private int zoom = -1;
+            private int frame = FRAMES;
+            private long last;
+            private final long[] gaps = new long[FRAMES];
+
+            @Override
+            public void handle(long now) {
+                if (frame < FRAMES) {
+                    gaps[frame++] = now - last;
+                    last = now;
+                    view.panBy(STEP_PIXELS, STEP_PIXELS / 2);
+                    return;
+                }
+                if (zoom >= 0) {
+                    report(ZOOMS[zoom], gaps);
+                }
+                if (++zoom == ZOOMS.length) {
+                    stop();
+                    Platform.exit();
+                    return;
+                }
+                view.reset(engine.getBoard()); // Start from an empty tile cache in the middle of the board
+                view.zoomTo(ZOOMS[zoom]);
+                frame = 0;
+                last = now;
+            }
+        }.start();
+    }
+
+    // The first two gaps hold the reset and the first screen of tiles, so they are left out
+    private static void report(double zoom, long[] gaps) {
+        long[] sorted = Arrays.copyOfRange(gaps, 2, gaps.length);
+        Arrays.sort(sorted);
+        long late = Arrays.stream(sorted).filter(gap -> gap > 17_500_000).count();
+        System.out.printf("zoom %6.3f px/cell: median %.1f ms, p99 %.1f ms, max %.1f ms, %d of %d frames late%n",
+                zoom, sorted[sorted.length / 2] / 1e6, sorted[sorted.length * 99 / 100] / 1e6,
+                sorted[sorted.length - 1] / 1e6, late, sorted.length);
+    }
+}
@@ -0,0 +1,106 @@
+package application;
+
+import com.sun.management.ThreadMXBean;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how many bytes ButtonBoardView allocates per revealed cell and per
+ * flag once it is warmed up. Only the view calls are measured; the engine
+ * moves are played beforehand, and layout/CSS pulses run after the loops.
+ */
+public class RenderAllocationBenchmark extends Application {
+    private static final int SIZE = 60;
+    private static final int FLAG_CELLS = 200;
+    private static final int FLAG_ROUNDS = 500;
+
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+
+    @Override
+    public void start(Stage stage) {
+        Board board = new Board(SIZE, SIZE * SIZE / 4);
+        board.generateMines(42);
+        GameEngine engine = new GameEngine(board);
+        ButtonBoardView view = new ButtonBoardView(board, (x, y) -> { }, (x, y) -> { });
+        stage.setScene(new Scene(view.getNode()));
+        stage.show();
+
+        // Flags: the first round fills the ImageView pool, later rounds should reuse it
+        int[] flagCells = new int[FLAG_CELLS];
+        for (int i = 0; i < FLAG_CELLS; i++) {
+            flagCells[i] = i;
+        }
+        toggleFlags(engine, view, flagCells);
+        long gcBefore = gcCount();
+        long before = allocatedBytes();
+        for (int round = 0; round < FLAG_ROUNDS; round++) {
+            toggleFlags(engine, view, flagCells);
+        }
+        long flagBytes = allocatedBytes() - before;
+        long flagGcs = gcCount() - gcBefore;
+        long flagOps = 2L * FLAG_CELLS * FLAG_ROUNDS;
+
+        // Reveals: play every safe cell first, then warm up on the first half and measure the second
+        List<int[]> reveals = new ArrayList<>();
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                if (!board.isMine(x, y) && !board.isRevealed(x, y)) {
+                    reveals.add(engine.reveal(x, y));
+                }
+            }
+        }
+        int half = reveals.size() / 2;
+        for (int i = 0; i < half; i++) {
+            view.showCells(reveals.get(i));
+        }
+        gcBefore = gcCount();
+        before = allocatedBytes();
+        long revealOps = 0;
+        for (int i = half; i < reveals.size(); i++) {
+            view.showCells(reveals.get(i));
+            revealOps += reveals.get(i).length;
+        }
+        long revealBytes = allocatedBytes() - before;
+        long revealGcs = gcCount() - gcBefore;
+
+        System.out.printf("flag toggles:   %d ops, %.1f bytes/op, %d GCs%n", flagOps, (double) flagBytes / flagOps, flagGcs);
+        System.out.printf("revealed cells: %d ops, %.1f bytes/op, %d GCs%n", revealOps, (double) revealBytes / revealOps, revealGcs);
+        Platform.exit();
+    }
+
+    // Flags every cell in the list, then removes the flags again
+    private void toggleFlags(GameEngine engine, BoardView view, int[] cells) {
+        for (int pass = 0; pass < 2; pass++) {
+            for (int cell : cells) {
+                int x = cell / SIZE;
+                int y = cell % SIZE;
+                if (engine.toggleFlag(x, y)) {
+                    view.showFlag(x, y);
+                }
+            }
+        }
+    }
+
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += gc.getCollectionCount();
+        }
+        return count;
+    }
+}
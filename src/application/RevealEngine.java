@@ -0,0 +1,161 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * Reveals cells, including whole openings. The openings are labelled (see
+ * ZeroRegions) the first time a zero cell is revealed, so later clicks into
+ * an opening copy out its cells in one batch instead of discovering them one
+ * by one. An iterative flood fill handles everything else; it replaced the
+ * old recursive revealCell, which overflowed the stack on large openings.
+ */
+public class RevealEngine {
+    // Bigger boards skip the labels (8 bytes or more per cell) and always flood fill
+    private static final int MAX_LABELLED_CELLS = 1 << 20;
+
+    private final Board board;
+    private final int size;
+    private final long[] flagBits;
+    private final long[] revealedBits;
+    private final boolean labelOpenings;
+    private ZeroRegions regions; // null until the first zero cell is revealed
+    private long[] openedRegions;
+
+    private int[] queue; // Work queue of cells (x * size + y), reused between reveals
+
+    public RevealEngine(Board board) {
+        this(board, true);
+    }
+
+    /**
+     * An engine that never labels the openings if labelOpenings is false, for
+     * games no one watches, which would rarely make up the cost of the labels.
+     * Boards over a million cells are never labelled.
+     */
+    public RevealEngine(Board board, boolean labelOpenings) {
+        this.board = board;
+        this.size = board.getSize();
+        this.flagBits = board.flagBits;
+        this.revealedBits = board.revealedBits;
+        this.labelOpenings = labelOpenings && size * size <= MAX_LABELLED_CELLS;
+        this.queue = new int[16];
+    }
+
+    /**
+     * Reveals the cell at (x, y) and, if it has no neighboring mines, the whole
+     * opening around it. Flagged cells stay hidden.
+     *
+     * @return the newly revealed cells as x * size + y
+     */
+    public int[] reveal(int x, int y) {
+        int count = revealCells(x, y); // May grow the queue
+        return Arrays.copyOf(queue, count);
+    }
+
+    /**
+     * Like reveal, but leaves the newly revealed cells at the start of
+     * lastRevealed() instead of copying them out, so batches of moves
+     * allocate nothing.
+     *
+     * @return how many cells were revealed
+     */
+    int revealCells(int x, int y) {
+        int start = x * size + y;
+        if (Board.get(revealedBits, start) || Board.get(flagBits, start)) {
+            return 0;
+        }
+
+        if (regions == null && labelOpenings && !Board.get(board.mineBits, start)
+                && board.countNeighboringMines(x, y) == 0) {
+            regions = new ZeroRegions(board);
+            openedRegions = new long[(size * size + 63) >>> 6];
+        }
+        int region = regions == null ? -1 : regions.regionOf(start);
+        if (region >= 0 && !Board.get(openedRegions, region)) {
+            Board.set(openedRegions, region);
+            int count = revealRegion(region);
+            if (count >= 0) {
+                return count;
+            }
+        }
+        return floodFill(start);
+    }
+
+    /** The cells from the last revealCells call; overwritten by the next reveal. */
+    int[] lastRevealed() {
+        return queue;
+    }
+
+    /*
+     * Reveals a labelled opening in one pass over its cells, so the cost is
+     * proportional to the opening. A flag on one of its zero cells stops the
+     * flood fill from spreading through it, which may cut the opening short;
+     * in that case the cells are hidden again and -1 is returned so the
+     * caller can flood fill instead.
+     */
+    private int revealRegion(int region) {
+        int from = regions.start(region);
+        int to = regions.end(region);
+        if (queue.length < to - from) {
+            queue = new int[to - from];
+        }
+        int tail = 0;
+        for (int i = from; i < to; i++) {
+            int cell = regions.cell(i);
+            if (Board.get(flagBits, cell) && regions.regionOf(cell) == region) {
+                for (int j = 0; j < tail; j++) {
+                    Board.clear(revealedBits, queue[j]);
+                }
+                return -1;
+            }
+            // Numbers on the edge may already be revealed, or flagged
+            if (!Board.get(revealedBits, cell) && !Board.get(flagBits, cell)) {
+                Board.set(revealedBits, cell);
+                queue[tail++] = cell;
+            }
+        }
+        return tail;
+    }
+
+    /*
+     * Breadth-first reveal from one cell. Used when the openings are not
+     * labelled and when an opening has flags inside it or was already
+     * revealed. Every cell is visited at most once.
+     */
+    private int floodFill(int start) {
+        int head = 0;
+        int tail = 0;
+        Board.set(revealedBits, start);
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int cx = cell / size;
+            int cy = cell - cx * size;
+            if (board.countNeighboringMines(cx, cy) > 0) {
+                continue;
+            }
+
+            // Take each neighboring row as a 3-bit window and enqueue the cells
+            // that are neither revealed nor flagged
+            int mask = board.edgeMask(cy);
+            int x1 = Math.min(cx + 1, size - 1);
+            for (int newX = Math.max(cx - 1, 0); newX <= x1; newX++) {
+                int from = newX * size + cy - 1;
+                int hidden = ~(Board.window(revealedBits, from) | Board.window(flagBits, from)) & mask;
+                while (hidden != 0) {
+                    int next = from + Integer.numberOfTrailingZeros(hidden);
+                    hidden &= hidden - 1;
+                    // Mark on enqueue so a cell never enters the queue twice
+                    Board.set(revealedBits, next);
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, Math.min(queue.length * 2, size * size));
+                    }
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        return tail;
+    }
+}
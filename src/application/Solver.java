@@ -0,0 +1,420 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * Works out which hidden cells are certainly safe or certainly mines from the
+ * numbers revealed so far. It tries, in order: single-number rules, pair rules
+ * between overlapping numbers, and exact enumeration of each independent
+ * component of the frontier. Only revealed cells are used as evidence; flags
+ * are ignored because a player's flag can be wrong.
+ *
+ * The solver is incremental. After each move, pass the cells the engine
+ * revealed to onReveal and call analyse(); only the numbers around those cells
+ * are looked at again, and only the frontier components they belong to are
+ * enumerated.
+ */
+public class Solver {
+    private static final int MAX_COMPONENT_VARIABLES = 40; // Bigger components are not enumerated
+    private static final int MAX_ENUMERATION_STEPS = 20_000;
+
+    private final Board board;
+    private final int size;
+
+    private final long[] knownMine;
+    private final long[] knownSafe;
+    private final long[] frontier; // Undetermined hidden cells next to a revealed number
+    private int frontierSize;
+
+    // Numbers whose neighborhood changed and need their rules checked again
+    private int[] dirty = new int[64];
+    private int dirtyCount;
+    private final long[] queued;
+
+    // Numbers checked since the last enumeration; their components may have changed
+    private int[] processed = new int[64];
+    private int processedCount;
+
+    // Deduced safe cells that have not been handed out yet
+    private int[] safeCells = new int[64];
+    private int safeCount;
+
+    // Scratch space for the rules, reused to avoid allocating on every move
+    private final int[] vars = new int[8];
+    private final int[] otherVars = new int[8];
+    private final int[] onlyThis = new int[8];
+    private final int[] onlyOther = new int[8];
+    private int lastRemaining;
+
+    // Scratch space for enumeration
+    private final long[] visited;
+    private final int[] seedVars = new int[8];
+    private final int[] neighborVars = new int[8];
+    private int[] componentVars = new int[64];
+    private int[] componentNumbers = new int[64];
+    private int[] visitedCells = new int[64];
+
+    public Solver(Board board) {
+        this.board = board;
+        this.size = board.getSize();
+        int words = (size * size + 63) >>> 6;
+        knownMine = new long[words];
+        knownSafe = new long[words];
+        frontier = new long[words];
+        queued = new long[words];
+        visited = new long[words];
+
+        // Pick up anything revealed before the solver was created
+        int count = 0;
+        int[] revealed = new int[64];
+        for (int cell = 0; cell < size * size; cell++) {
+            if (Board.get(board.revealedBits, cell)) {
+                if (count == revealed.length) {
+                    revealed = Arrays.copyOf(revealed, count * 2);
+                }
+                revealed[count++] = cell;
+            }
+        }
+        onReveal(Arrays.copyOf(revealed, count));
+    }
+
+    /** Updates the frontier and constraints for cells that were just revealed. */
+    public void onReveal(int[] cells) {
+        for (int cell : cells) {
+            if (Board.get(frontier, cell)) {
+                Board.clear(frontier, cell);
+                frontierSize--;
+            }
+            Board.clear(knownSafe, cell);
+
+            int x = cell / size;
+            int y = cell % size;
+            if (board.countNeighboringMines(x, y) > 0) {
+                queue(cell);
+                int n = variables(cell, vars);
+                for (int i = 0; i < n; i++) {
+                    if (!Board.get(frontier, vars[i])) {
+                        Board.set(frontier, vars[i]);
+                        frontierSize++;
+                    }
+                }
+            }
+            // Neighboring numbers just lost a variable
+            queueNumbersAround(cell);
+        }
+    }
+
+    /** Applies the rules until nothing more can be deduced. */
+    public void analyse() {
+        do {
+            propagate();
+        } while (enumerate());
+    }
+
+    /**
+     * Returns a deduced safe cell that has not been revealed yet, as
+     * x * size + y, or -1 if there is none. Each cell is handed out once.
+     */
+    public int nextSafeCell() {
+        while (safeCount > 0) {
+            int cell = safeCells[--safeCount];
+            if (!Board.get(board.revealedBits, cell)) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isKnownSafe(int x, int y) {
+        return Board.get(knownSafe, x * size + y);
+    }
+
+    public boolean isKnownMine(int x, int y) {
+        return Board.get(knownMine, x * size + y);
+    }
+
+    /** Number of hidden cells next to a number whose state is still unknown. */
+    public int getFrontierSize() {
+        return frontierSize;
+    }
+
+    // Single-number and pair rules over the dirty numbers
+    private void propagate() {
+        while (dirtyCount > 0) {
+            int cell = dirty[--dirtyCount];
+            Board.clear(queued, cell);
+            processed = push(processed, processedCount++, cell);
+
+            int n = variables(cell, vars);
+            if (n == 0) {
+                continue;
+            }
+            int remaining = lastRemaining;
+            if (remaining == 0) {
+                for (int i = 0; i < n; i++) {
+                    markSafe(vars[i]);
+                }
+            } else if (remaining == n) {
+                for (int i = 0; i < n; i++) {
+                    markMine(vars[i]);
+                }
+            } else {
+                pairRules(cell, n, remaining);
+            }
+        }
+    }
+
+    /*
+     * For two overlapping numbers A and B: the mines A has outside B minus the
+     * mines B has outside A equals remaining(A) - remaining(B). If that equals
+     * the number of cells only A touches, they are all mines and the cells only
+     * B touches are all safe. Subsets are the special case where one side is empty.
+     */
+    private void pairRules(int cell, int n, int remaining) {
+        int x = cell / size;
+        int y = cell % size;
+        for (int i = Math.max(x - 2, 0); i <= Math.min(x + 2, size - 1); i++) {
+            for (int j = Math.max(y - 2, 0); j <= Math.min(y + 2, size - 1); j++) {
+                int other = i * size + j;
+                if (other == cell || !Board.get(board.revealedBits, other)) {
+                    continue;
+                }
+                int m = variables(other, otherVars);
+                if (m == 0) {
+                    continue;
+                }
+                int otherRemaining = lastRemaining;
+
+                // Both lists are in increasing cell order, so split them with a merge
+                int a = 0;
+                int b = 0;
+                int onlyThisCount = 0;
+                int onlyOtherCount = 0;
+                int shared = 0;
+                while (a < n || b < m) {
+                    if (b == m || (a < n && vars[a] < otherVars[b])) {
+                        onlyThis[onlyThisCount++] = vars[a++];
+                    } else if (a == n || otherVars[b] < vars[a]) {
+                        onlyOther[onlyOtherCount++] = otherVars[b++];
+                    } else {
+                        shared++;
+                        a++;
+                        b++;
+                    }
+                }
+                if (shared == 0) {
+                    continue;
+                }
+
+                boolean changed = false;
+                if (remaining - otherRemaining == onlyThisCount) {
+                    changed = markAll(onlyThis, onlyThisCount, onlyOther, onlyOtherCount);
+                } else if (otherRemaining - remaining == onlyOtherCount) {
+                    changed = markAll(onlyOther, onlyOtherCount, onlyThis, onlyThisCount);
+                }
+                if (changed) {
+                    return; // vars is stale now; this number has been queued again
+                }
+            }
+        }
+    }
+
+    private boolean markAll(int[] mines, int mineCount, int[] safe, int safeCount) {
+        boolean changed = false;
+        for (int i = 0; i < mineCount; i++) {
+            changed |= markMine(mines[i]);
+        }
+        for (int i = 0; i < safeCount; i++) {
+            changed |= markSafe(safe[i]);
+        }
+        return changed;
+    }
+
+    /*
+     * Enumerates every frontier component that contains a number checked since
+     * the last call. A cell that is a mine in all of a component's solutions is
+     * a mine, and one that is a mine in none is safe. Returns true if anything
+     * new was deduced.
+     */
+    private boolean enumerate() {
+        boolean changed = false;
+        int visitedCount = 0;
+        for (int p = 0; p < processedCount; p++) {
+            int n = variables(processed[p], seedVars);
+            for (int i = 0; i < n; i++) {
+                if (Board.get(visited, seedVars[i])) {
+                    continue;
+                }
+                int start = visitedCount;
+                visitedCount = collectComponent(seedVars[i], visitedCount);
+                changed |= solveComponent(start, visitedCount);
+            }
+        }
+        processedCount = 0;
+
+        for (int i = 0; i < visitedCount; i++) {
+            Board.clear(visited, visitedCells[i]);
+        }
+        return changed;
+    }
+
+    // Breadth-first search over variables linked by shared numbers; variables and numbers are appended to visitedCells
+    private int collectComponent(int seed, int visitedCount) {
+        Board.set(visited, seed);
+        visitedCells = push(visitedCells, visitedCount++, seed);
+        for (int head = visitedCount - 1; head < visitedCount; head++) {
+            int cell = visitedCells[head];
+            if (Board.get(board.revealedBits, cell)) {
+                int n = variables(cell, neighborVars);
+                for (int i = 0; i < n; i++) {
+                    if (!Board.get(visited, neighborVars[i])) {
+                        Board.set(visited, neighborVars[i]);
+                        visitedCells = push(visitedCells, visitedCount++, neighborVars[i]);
+                    }
+                }
+            } else {
+                int x = cell / size;
+                int y = cell % size;
+                for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, size - 1); i++) {
+                    for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, size - 1); j++) {
+                        int number = i * size + j;
+                        if (!Board.get(visited, number) && Board.get(board.revealedBits, number)
+                                && board.countNeighboringMines(i, j) > 0) {
+                            Board.set(visited, number);
+                            visitedCells = push(visitedCells, visitedCount++, number);
+                        }
+                    }
+                }
+            }
+        }
+        return visitedCount;
+    }
+
+    private boolean solveComponent(int from, int to) {
+        int varCount = 0;
+        int numberCount = 0;
+        for (int i = from; i < to; i++) {
+            int cell = visitedCells[i];
+            if (Board.get(board.revealedBits, cell)) {
+                componentNumbers = push(componentNumbers, numberCount++, cell);
+            } else {
+                componentVars = push(componentVars, varCount++, cell);
+            }
+        }
+        if (varCount > MAX_COMPONENT_VARIABLES) {
+            return false;
+        }
+
+        ComponentEnumeration enumeration = new ComponentEnumeration(varCount, numberCount, MAX_ENUMERATION_STEPS, false);
+        int[] sortedVars = Arrays.copyOf(componentVars, varCount);
+        Arrays.sort(sortedVars);
+        int[] localIndex = new int[varCount];
+        for (int i = 0; i < varCount; i++) {
+            localIndex[Arrays.binarySearch(sortedVars, componentVars[i])] = i;
+        }
+        for (int k = 0; k < numberCount; k++) {
+            int n = variables(componentNumbers[k], vars);
+            enumeration.remaining[k] = lastRemaining;
+            enumeration.unassigned[k] = n;
+            for (int i = 0; i < n; i++) {
+                enumeration.link(localIndex[Arrays.binarySearch(sortedVars, vars[i])], k);
+            }
+        }
+
+        if (!enumeration.run() || enumeration.solutions == 0) {
+            return false;
+        }
+        boolean changed = false;
+        for (int i = 0; i < varCount; i++) {
+            if (enumeration.alwaysSafe(i)) {
+                changed |= markSafe(componentVars[i]);
+            } else if (enumeration.alwaysMine(i)) {
+                changed |= markMine(componentVars[i]);
+            }
+        }
+        return changed;
+    }
+
+    private boolean markSafe(int cell) {
+        if (Board.get(knownSafe, cell) || Board.get(knownMine, cell)) {
+            return false;
+        }
+        Board.set(knownSafe, cell);
+        leaveFrontier(cell);
+        safeCells = push(safeCells, safeCount++, cell);
+        queueNumbersAround(cell);
+        return true;
+    }
+
+    private boolean markMine(int cell) {
+        if (Board.get(knownSafe, cell) || Board.get(knownMine, cell)) {
+            return false;
+        }
+        Board.set(knownMine, cell);
+        leaveFrontier(cell);
+        queueNumbersAround(cell);
+        return true;
+    }
+
+    private void leaveFrontier(int cell) {
+        if (Board.get(frontier, cell)) {
+            Board.clear(frontier, cell);
+            frontierSize--;
+        }
+    }
+
+    private void queueNumbersAround(int cell) {
+        int x = cell / size;
+        int y = cell % size;
+        for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, size - 1); i++) {
+            for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, size - 1); j++) {
+                int number = i * size + j;
+                if (number != cell && Board.get(board.revealedBits, number)) {
+                    queue(number);
+                }
+            }
+        }
+    }
+
+    private void queue(int cell) {
+        if (!Board.get(queued, cell)) {
+            Board.set(queued, cell);
+            dirty = push(dirty, dirtyCount++, cell);
+        }
+    }
+
+    /*
+     * Fills out with the undetermined hidden neighbors of the number at cell,
+     * in increasing order, and returns how many there are. lastRemaining is
+     * set to the mines among them: the number minus the known mines around it.
+     */
+    private int variables(int cell, int[] out) {
+        int x = cell / size;
+        int y = cell % size;
+        int remaining = board.countNeighboringMines(x, y);
+        int n = 0;
+        for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, size - 1); i++) {
+            for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, size - 1); j++) {
+                int neighbor = i * size + j;
+                if (neighbor == cell || Board.get(board.revealedBits, neighbor) || Board.get(knownSafe, neighbor)) {
+                    continue;
+                }
+                if (Board.get(knownMine, neighbor)) {
+                    remaining--;
+                } else {
+                    out[n++] = neighbor;
+                }
+            }
+        }
+        lastRemaining = remaining;
+        return n;
+    }
+
+    private static int[] push(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+}
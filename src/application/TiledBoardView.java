@@ -0,0 +1,455 @@
+package application;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.VPos;
+import javafx.scene.Parent;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A pannable, zoomable window onto boards of any size. Drag to pan, use the
+ * mouse wheel to zoom, click to reveal and right-click to flag.
+ *
+ * The board is drawn as square bitmap tiles of TILE_PIXELS pixels, rendered
+ * once into WritableImages and then only copied to the Canvas while panning.
+ * Tiles are rendered at one of a few levels of detail (LEVELS, in pixels per
+ * cell) and scaled to the zoom: from full cells with numbers, down to a pixel
+ * per cell in state colors, and a pixel per 4x4 cells when zoomed further out.
+ *
+ * A move only throws away the tiles holding the cells it changed; they are
+ * rendered again the next time they are on screen. Rendering stops for the
+ * frame after FRAME_BUDGET_NANOS, leaving plain tiles to fill in on later
+ * frames, so jumping to a new area never stalls a frame.
+ */
+public class TiledBoardView implements BoardView {
+    private static final int TILE_PIXELS = 256;
+    private static final double[] LEVELS = { 0.25, 1, 4, 16 }; // Pixels per cell
+    private static final double MIN_ZOOM = 1.0 / 16;
+    private static final double MAX_ZOOM = 16; // The finest level, so tiles are never scaled up
+    private static final int MAX_TILES = 256; // 64 MB of tiles
+    private static final long FRAME_BUDGET_NANOS = 8_000_000;
+    private static final int VIEWPORT_PIXELS = 800;
+    private static final double DRAG_THRESHOLD = 4;
+
+    private static final int GLYPH = 16; // Pixels per cell at the finest level
+    private static final int HIDDEN = 0; // Glyph indexes; 1-8 are the numbers
+    private static final int ZERO = 9;
+    private static final int FLAGGED = 10;
+
+    private static final Color REVEALED_COLOR = Color.rgb(225, 225, 215);
+    private static final Color GRID_LINE_COLOR = Color.rgb(40, 80, 30);
+    private static final Color FLAG_COLOR = Color.DARKRED;
+    private static final Color OFF_BOARD_COLOR = Color.rgb(50, 50, 50);
+
+    // The same colors as ARGB ints for the tile pixels
+    private static final int GRASS = argb(CellStyles.GRASS);
+    private static final int REVEALED = argb(REVEALED_COLOR);
+    private static final int GRID_LINE = argb(GRID_LINE_COLOR);
+    private static final int FLAG = argb(FLAG_COLOR);
+    private static final int OFF_BOARD = argb(OFF_BOARD_COLOR);
+    private static final int[] NUMBERS = new int[CellStyles.NUMBER_COLORS.length];
+    private static final int[] HEAT = new int[CellStyles.HEAT_COLORS.length];
+
+    static {
+        for (int i = 1; i < NUMBERS.length; i++) {
+            NUMBERS[i] = argb(CellStyles.NUMBER_COLORS[i]);
+        }
+        for (int i = 0; i < HEAT.length; i++) {
+            HEAT[i] = argb(CellStyles.HEAT_COLORS[i]);
+        }
+    }
+
+    private Board board;
+    private int size;
+    private double[] probabilities; // Hint overlay, or null when it is off
+
+    private final Pane pane;
+    private final Canvas canvas = new Canvas();
+    private final GraphicsContext gc = canvas.getGraphicsContext2D();
+    private final AnimationTimer timer;
+    private boolean drawQueued;
+
+    // Zoom in screen pixels per cell, always a power of two; the window's top-left corner in cells
+    private double zoom;
+    private double top;
+    private double left;
+
+    private double pressX;
+    private double pressY;
+    private boolean dragged;
+
+    // Rendered tiles by level and position, least recently drawn first; evicted images are reused
+    private final LinkedHashMap<Long, WritableImage> tiles = new LinkedHashMap<>(MAX_TILES * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, WritableImage> eldest) {
+            if (size() <= MAX_TILES) {
+                return false;
+            }
+            spareImages.push(eldest.getValue());
+            return true;
+        }
+    };
+    private final ArrayDeque<WritableImage> spareImages = new ArrayDeque<>();
+    private final int[] pixels = new int[TILE_PIXELS * TILE_PIXELS]; // Tile being rendered
+    private final int[][] glyphs; // Finest-level cell images, indexed HIDDEN, 1-8, ZERO, FLAGGED
+
+    public TiledBoardView(Board board, CellHandler onReveal, CellHandler onFlag) {
+        glyphs = renderGlyphs();
+        pane = new Pane(canvas);
+        pane.setPrefSize(VIEWPORT_PIXELS, VIEWPORT_PIXELS);
+        canvas.widthProperty().bind(pane.widthProperty());
+        canvas.heightProperty().bind(pane.heightProperty());
+        canvas.widthProperty().addListener(o -> requestDraw());
+        canvas.heightProperty().addListener(o -> requestDraw());
+        gc.setImageSmoothing(false); // Scaled tiles keep sharp cell edges
+
+        canvas.setOnMousePressed(e -> {
+            pressX = e.getX();
+            pressY = e.getY();
+            dragged = false;
+        });
+        canvas.setOnMouseDragged(e -> {
+            if (!dragged && Math.hypot(e.getX() - pressX, e.getY() - pressY) < DRAG_THRESHOLD) {
+                return;
+            }
+            dragged = true;
+            left -= (e.getX() - pressX) / zoom;
+            top -= (e.getY() - pressY) / zoom;
+            pressX = e.getX();
+            pressY = e.getY();
+            requestDraw();
+        });
+        canvas.setOnMouseClicked(e -> {
+            if (dragged) {
+                return;
+            }
+            int x = (int) Math.floor(top + e.getY() / zoom); // Rows go down
+            int y = (int) Math.floor(left + e.getX() / zoom);
+            if (x < 0 || x >= size || y < 0 || y >= size) {
+                return;
+            }
+            if (e.getButton() == MouseButton.PRIMARY) {
+                onReveal.handle(x, y);
+            } else if (e.getButton() == MouseButton.SECONDARY) {
+                onFlag.handle(x, y);
+            }
+        });
+        canvas.setOnScroll(e -> {
+            double next = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, e.getDeltaY() > 0 ? zoom * 2 : zoom / 2));
+            // Keep the cell under the pointer where it is
+            left += e.getX() / zoom - e.getX() / next;
+            top += e.getY() / zoom - e.getY() / next;
+            zoom = next;
+            requestDraw();
+        });
+
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                drawQueued = false;
+                stop();
+                draw();
+            }
+        };
+        reset(board);
+    }
+
+    @Override
+    public Parent getNode() {
+        return pane;
+    }
+
+    /** Throws away every tile and zooms out until the whole board fits. */
+    @Override
+    public void reset(Board board) {
+        this.board = board;
+        this.size = board.getSize();
+        this.probabilities = null;
+        clearTiles();
+        zoom = MAX_ZOOM;
+        while (zoom > MIN_ZOOM && size * zoom > VIEWPORT_PIXELS) {
+            zoom /= 2;
+        }
+        // Centre the board in the window
+        double viewCells = VIEWPORT_PIXELS / zoom;
+        top = (size - viewCells) / 2;
+        left = (size - viewCells) / 2;
+        requestDraw();
+    }
+
+    @Override
+    public void showCells(int[] cells, int from, int to) {
+        long last = -1;
+        for (int i = from; i < to; i++) {
+            // Cascades reveal runs of cells in the same tiles, so skip repeats of the last one.
+            // The finest tiles sit inside the coarser ones, so they decide what is a repeat.
+            long key = tileKey(LEVELS.length - 1, cells[i] / size, cells[i] % size);
+            if (key != last) {
+                invalidate(cells[i] / size, cells[i] % size);
+                last = key;
+            }
+        }
+        requestDraw();
+    }
+
+    @Override
+    public void showFlag(int x, int y) {
+        invalidate(x, y);
+        requestDraw();
+    }
+
+    @Override
+    public void showProbabilities(double[] probabilities) {
+        this.probabilities = probabilities;
+        clearTiles();
+        requestDraw();
+    }
+
+    /** Zooms to a power of two pixels per cell, keeping the window's centre in place. */
+    void zoomTo(double next) {
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        left += width / 2 / zoom - width / 2 / next;
+        top += height / 2 / zoom - height / 2 / next;
+        zoom = next;
+        requestDraw();
+    }
+
+    /** Moves the window by a number of screen pixels, as a drag would. */
+    void panBy(double dx, double dy) {
+        left += dx / zoom;
+        top += dy / zoom;
+        requestDraw();
+    }
+
+    // Drops the cell's tile at every level
+    private void invalidate(int x, int y) {
+        for (int level = 0; level < LEVELS.length; level++) {
+            WritableImage image = tiles.remove(tileKey(level, x, y));
+            if (image != null) {
+                spareImages.push(image);
+            }
+        }
+    }
+
+    private void clearTiles() {
+        spareImages.addAll(tiles.values());
+        tiles.clear();
+    }
+
+    private void requestDraw() {
+        if (!drawQueued) {
+            drawQueued = true;
+            timer.start();
+        }
+    }
+
+    private void draw() {
+        long start = System.nanoTime();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        gc.setFill(OFF_BOARD_COLOR);
+        gc.fillRect(0, 0, width, height);
+
+        // The coarsest level with at least as many pixels per cell as the zoom, so tiles are only scaled down
+        int level = 0;
+        while (level < LEVELS.length - 1 && LEVELS[level] < zoom) {
+            level++;
+        }
+        double tileCells = TILE_PIXELS / LEVELS[level];
+        double tileScreen = tileCells * zoom;
+        int firstRow = (int) Math.max(0, Math.floor(top / tileCells));
+        int firstColumn = (int) Math.max(0, Math.floor(left / tileCells));
+        int lastRow = (int) Math.min(Math.ceil(size / tileCells) - 1, Math.floor((top + height / zoom) / tileCells));
+        int lastColumn = (int) Math.min(Math.ceil(size / tileCells) - 1, Math.floor((left + width / zoom) / tileCells));
+
+        boolean missing = false;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                double screenX = (column * tileCells - left) * zoom;
+                double screenY = (row * tileCells - top) * zoom;
+                long key = (long) level << 56 | (long) row << 28 | column;
+                WritableImage image = tiles.get(key);
+                if (image == null && System.nanoTime() - start < FRAME_BUDGET_NANOS) {
+                    image = renderTile(level, row, column);
+                    tiles.put(key, image);
+                }
+                if (image != null) {
+                    gc.drawImage(image, screenX, screenY, tileScreen, tileScreen);
+                } else {
+                    missing = true; // Out of time; left as plain grass until a later frame
+                    gc.setFill(CellStyles.GRASS);
+                    gc.fillRect(screenX, screenY, tileScreen, tileScreen);
+                }
+            }
+        }
+        if (missing) {
+            requestDraw();
+        }
+    }
+
+    private static long tileKey(int level, int x, int y) {
+        int tileCells = (int) (TILE_PIXELS / LEVELS[level]);
+        return (long) level << 56 | (long) (x / tileCells) << 28 | y / tileCells;
+    }
+
+    private WritableImage renderTile(int level, int row, int column) {
+        double perCell = LEVELS[level];
+        int tileCells = (int) (TILE_PIXELS / perCell);
+        int x0 = row * tileCells;
+        int y0 = column * tileCells;
+
+        if (perCell < 1) {
+            // Each pixel stands for a square of cells: a flag shows if there is one, else whether most are open
+            int span = (int) (1 / perCell);
+            for (int py = 0; py < TILE_PIXELS; py++) {
+                for (int px = 0; px < TILE_PIXELS; px++) {
+                    pixels[py * TILE_PIXELS + px] = blockColor(x0 + py * span, y0 + px * span, span);
+                }
+            }
+        } else {
+            int cellPixels = (int) perCell;
+            for (int i = 0; i < tileCells; i++) {
+                for (int j = 0; j < tileCells; j++) {
+                    drawCell(x0 + i, y0 + j, i * cellPixels, j * cellPixels, cellPixels);
+                }
+            }
+        }
+
+        WritableImage image = spareImages.poll();
+        if (image == null) {
+            image = new WritableImage(TILE_PIXELS, TILE_PIXELS);
+        }
+        image.getPixelWriter().setPixels(0, 0, TILE_PIXELS, TILE_PIXELS, PixelFormat.getIntArgbInstance(),
+                pixels, 0, TILE_PIXELS);
+        return image;
+    }
+
+    // Reads each row of the block from the bit planes in one go, rather than cell by cell
+    private int blockColor(int x, int y, int span) {
+        if (x >= size || y >= size) {
+            return OFF_BOARD;
+        }
+        int width = Math.min(span, size - y);
+        int open = 0;
+        int cells = 0;
+        for (int i = x; i < Math.min(x + span, size); i++) {
+            int cell = i * size + y;
+            if (bits(board.flagBits, cell, width) != 0) {
+                return FLAG;
+            }
+            open += Long.bitCount(bits(board.revealedBits, cell, width));
+            cells += width;
+        }
+        return open * 2 >= cells ? REVEALED : GRASS;
+    }
+
+    // `count` (under 64) bits of the plane starting at `from`
+    private static long bits(long[] plane, int from, int count) {
+        int word = from >>> 6;
+        int shift = from & 63;
+        long value = plane[word] >>> shift;
+        if (shift + count > 64) {
+            value |= plane[word + 1] << (64 - shift);
+        }
+        return value & ((1L << count) - 1);
+    }
+
+    // Draws cell (x, y) as a cellPixels square at row py, column px of the tile
+    private void drawCell(int x, int y, int py, int px, int cellPixels) {
+        if (x >= size || y >= size) {
+            fill(py, px, cellPixels, OFF_BOARD, OFF_BOARD);
+            return;
+        }
+        int color;
+        int glyph;
+        if (board.isRevealed(x, y)) {
+            int count = board.countNeighboringMines(x, y);
+            color = count > 0 ? NUMBERS[count] : REVEALED;
+            glyph = count > 0 ? count : ZERO;
+        } else if (board.isFlagged(x, y)) {
+            color = FLAG;
+            glyph = FLAGGED;
+        } else if (probabilities != null) {
+            color = HEAT[CellStyles.heatLevel(probabilities[x * size + y])];
+            glyph = -1;
+        } else {
+            color = GRASS;
+            glyph = HIDDEN;
+        }
+
+        if (cellPixels == GLYPH && glyph >= 0) {
+            int[] source = glyphs[glyph];
+            for (int row = 0; row < GLYPH; row++) {
+                System.arraycopy(source, row * GLYPH, pixels, (py + row) * TILE_PIXELS + px, GLYPH);
+            }
+        } else {
+            fill(py, px, cellPixels, cellPixels >= 4 ? GRID_LINE : color, color);
+        }
+    }
+
+    // A square with a one-pixel edge on its top and left, so neighboring cells share grid lines
+    private void fill(int py, int px, int cellPixels, int edge, int inside) {
+        for (int row = 0; row < cellPixels; row++) {
+            int offset = (py + row) * TILE_PIXELS + px;
+            pixels[offset] = edge;
+            for (int column = 1; column < cellPixels; column++) {
+                pixels[offset + column] = row == 0 ? edge : inside;
+            }
+        }
+    }
+
+    // Draws each kind of cell once at the finest level and keeps its pixels
+    private static int[][] renderGlyphs() {
+        Canvas scratch = new Canvas(GLYPH, GLYPH);
+        GraphicsContext g = scratch.getGraphicsContext2D();
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.CENTER);
+        g.setFont(Font.font("Arial", FontWeight.EXTRA_BOLD, GLYPH * 0.7));
+        Image flag = new Image(CellStyles.class.getResource(CellStyles.FLAG_RESOURCE).toExternalForm(),
+                GLYPH - 1, GLYPH - 1, true, true, false); // Loaded now, since it is drawn straight away
+
+        int[][] glyphs = new int[FLAGGED + 1][];
+        for (int glyph = 0; glyph < glyphs.length; glyph++) {
+            g.setFill(GRID_LINE_COLOR);
+            g.fillRect(0, 0, GLYPH, GLYPH);
+            g.setFill(glyph == HIDDEN || glyph == FLAGGED ? CellStyles.GRASS : REVEALED_COLOR);
+            g.fillRect(1, 1, GLYPH - 1, GLYPH - 1);
+            if (glyph >= 1 && glyph <= 8) {
+                g.setFill(CellStyles.NUMBER_COLORS[glyph]);
+                g.fillText(CellStyles.NUMBER_TEXT[glyph], GLYPH / 2.0 + 0.5, GLYPH / 2.0 + 0.5);
+            } else if (glyph == FLAGGED) {
+                if (flag.isError()) {
+                    g.setFill(FLAG_COLOR);
+                    g.fillRect(1, 1, GLYPH - 1, GLYPH - 1);
+                } else {
+                    g.drawImage(flag, 1, 1);
+                }
+            }
+            WritableImage snapshot = scratch.snapshot(new SnapshotParameters(), null);
+            glyphs[glyph] = new int[GLYPH * GLYPH];
+            snapshot.getPixelReader().getPixels(0, 0, GLYPH, GLYPH, PixelFormat.getIntArgbInstance(),
+                    glyphs[glyph], 0, GLYPH);
+        }
+        return glyphs;
+    }
+
+    private static int argb(Color color) {
+        return 0xFF << 24 | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8 | (int) Math.round(color.getBlue() * 255);
+    }
+}
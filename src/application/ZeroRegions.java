@@ -0,0 +1,167 @@
+package application;
+
+/**
+ * The openings of a board, worked out once from the mine layout. An opening
+ * is a group of touching cells with no neighboring mines together with the
+ * numbered cells around its edge, which is exactly what a click on any of
+ * its zero cells reveals.
+ *
+ * Regions are found with one pass of union-find over the rows, taking the
+ * zero cells from NeighborCounts rather than counting each cell's neighbors
+ * on its own. Each region's cells are stored back to back in one array, so
+ * revealing an opening only touches the cells it reveals.
+ */
+class ZeroRegions {
+    private static final int COUNT_BAND_CELLS = 1 << 20;
+
+    private final int size;
+    private final int[] regionOf; // Region of each zero cell, -1 for other cells
+    private final int[] start; // Region r's cells are cells[start[r]] to cells[start[r + 1] - 1]
+    private final int[] cells;
+
+    ZeroRegions(Board board) {
+        size = board.getSize();
+        int total = size * size;
+        regionOf = new int[total];
+
+        // Link each zero cell to the zero cells before it: left, and the three above. The
+        // counts come from NeighborCounts a band of rows at a time, in row order
+        int rows = Math.max(1, COUNT_BAND_CELLS / size);
+        byte[] counts = new byte[Math.min(rows, size) * size];
+        for (int fromRow = 0; fromRow < size; fromRow += rows) {
+            int toRow = Math.min(fromRow + rows, size);
+            NeighborCounts.compute(board, fromRow, toRow, counts);
+            for (int x = fromRow; x < toRow; x++) {
+                for (int y = 0; y < size; y++) {
+                    int cell = x * size + y;
+                    if (Board.get(board.mineBits, cell) || counts[(x - fromRow) * size + y] != 0) {
+                        regionOf[cell] = -1;
+                        continue;
+                    }
+                    regionOf[cell] = cell;
+                    if (y > 0 && regionOf[cell - 1] >= 0) {
+                        union(cell, cell - 1);
+                    }
+                    if (x > 0) {
+                        for (int above = cell - size - (y > 0 ? 1 : 0); above <= cell - size + (y < size - 1 ? 1 : 0);
+                                above++) {
+                            if (regionOf[above] >= 0) {
+                                union(cell, above);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // Number the roots, then point every zero cell at its region's number
+        int regions = 0;
+        for (int cell = 0; cell < total; cell++) {
+            if (regionOf[cell] == cell) {
+                regionOf[cell] = -2 - regions++; // Negative so it cannot be mistaken for a parent
+            }
+        }
+        for (int cell = 0; cell < total; cell++) {
+            if (regionOf[cell] >= 0) {
+                regionOf[cell] = regionOf[find(cell)];
+            }
+        }
+        for (int cell = 0; cell < total; cell++) {
+            if (regionOf[cell] <= -2) {
+                regionOf[cell] = -2 - regionOf[cell];
+            }
+        }
+
+        // Count each region's cells, then fill them in; a numbered cell can border several regions
+        start = new int[regions + 1];
+        int[] around = new int[4];
+        for (int cell = 0; cell < total; cell++) {
+            int n = regionsAround(board, cell, around);
+            for (int i = 0; i < n; i++) {
+                start[around[i] + 1]++;
+            }
+        }
+        for (int r = 0; r < regions; r++) {
+            start[r + 1] += start[r];
+        }
+        cells = new int[start[regions]];
+        int[] next = start.clone();
+        for (int cell = 0; cell < total; cell++) {
+            int n = regionsAround(board, cell, around);
+            for (int i = 0; i < n; i++) {
+                cells[next[around[i]]++] = cell;
+            }
+        }
+    }
+
+    /** Region of the cell, or -1 if it has neighboring mines (or is one). */
+    int regionOf(int cell) {
+        return regionOf[cell];
+    }
+
+    int start(int region) {
+        return start[region];
+    }
+
+    int end(int region) {
+        return start[region + 1];
+    }
+
+    int cell(int index) {
+        return cells[index];
+    }
+
+    // Zero cells belong to their own region; other safe cells to every region next to them
+    private int regionsAround(Board board, int cell, int[] out) {
+        if (regionOf[cell] >= 0) {
+            out[0] = regionOf[cell];
+            return 1;
+        }
+        if (Board.get(board.mineBits, cell)) {
+            return 0;
+        }
+        int x = cell / size;
+        int y = cell - x * size;
+        int n = 0;
+        for (int i = Math.max(x - 1, 0); i <= Math.min(x + 1, size - 1); i++) {
+            for (int j = Math.max(y - 1, 0); j <= Math.min(y + 1, size - 1); j++) {
+                int region = regionOf[i * size + j];
+                if (region >= 0 && !contains(out, n, region)) {
+                    out[n++] = region;
+                }
+            }
+        }
+        return n;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int find(int cell) {
+        int root = cell;
+        while (regionOf[root] >= 0 && regionOf[root] != root) {
+            root = regionOf[root];
+        }
+        while (cell != root) {
+            int parent = regionOf[cell];
+            regionOf[cell] = root;
+            cell = parent;
+        }
+        return root;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA != rootB) {
+            // Keep the smaller cell as the root so roots are numbered in row order
+            regionOf[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 module eggsweeper {
 	requires javafx.controls;
 	requires javafx.graphics;
+	requires jdk.management;
 	
 	opens application to javafx.graphics, javafx.fxml;
 }